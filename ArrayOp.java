@@ -2,14 +2,16 @@
  * The arrayOP class does operations on arrays of integers. 
  * <p>
  * The input and returned values for each methods are integers or int[] of 
- * fixed length. Error message will be 
- * thrown if the length of input is incorrect.
+ * fixed length. In the checked mode (see the constructors), which is 
+ * meant for debugging, error message will be thrown if the length of 
+ * input is incorrect, and for substract and binom, we check first that 
+ * the first input is greater or equal to the second input so the 
+ * operation works in the naive way. In the default mode the inputs are 
+ * assumed to be valid and nothing is checked.
  * <p>
  * All components of the input are assumed to be nonnegative integers. 
  * All components of the output will be nonnegative integers too. 
- * For substract and binom, we check first that the first input is 
- * greater or equal to the second input so the operation works in the 
- * naive way. 
+ * J uses a table of exact integer powers instead of Math.pow. 
  * 
  * @author Yu-jong Tzeng
  * @version 1.1.2 
@@ -18,19 +20,43 @@
 
 public class ArrayOp
 {    
-    private static long[][] C;
-    private static int length;
+    private final long[][] C;
+    private final int length;
+    // pow[i][e] = (i + 1)^e
+    private final long[][] pow;
+    private final boolean checked;
     
     /** 
      * Before doing any operations, the class builds a table of all 
      * binomial coefficients with m (<= n) choose k 
      * elements for any k. n is the required length for inputs. 
+     * The inputs are not checked. 
      * 
      * @param n The max parameter can be taken for binomial coefficients.
      * It is also the required length for inputs and outputs. 
      */
     public ArrayOp(int n) {
+        this(n, false);
+    }
+    
+    /** 
+     * Build the tables as ArrayOp(n). If checked is true, every method 
+     * checks its inputs and prints an error message if they are invalid. 
+     * 
+     * @param n The max parameter can be taken for binomial coefficients.
+     * It is also the required length for inputs and outputs. 
+     * @param checked True for the checked (debug) mode. 
+     */
+    public ArrayOp(int n, boolean checked) {
+        this.checked = checked;
         length = n;
+        pow = new long[n][n + 1];
+        for (int i = 0; i < n; i++) {
+            pow[i][0] = 1;
+            for (int e = 1; e <= n; e++) {
+                pow[i][e] = pow[i][e - 1] * (i + 1);
+            }
+        }
         C = new long[n + 1][n + 1];
         
         C[0][0] = 1;
@@ -58,9 +84,7 @@ public class ArrayOp
      * @return True if c.length == d.length and c[i] >= d[i] for all i. 
      */
     public boolean greater(int[] c, int[] d) {
-        checkLength(c);
-        checkLength(d);
-        if (!checkLength(c) || !checkLength(d)) return false;
+        if (checked && !(checkLength(c) & checkLength(d))) return false;
         
         // The length of c and d are both length
         for (int i = 0; i < length; i++) {
@@ -85,9 +109,9 @@ public class ArrayOp
      * @return The componentwise sum of the inputs. 
      */
     public int[] add(int[] c, int[] d) {        
-        checkLength(c);
-        checkLength(d);
-        if (!checkLength(c) || !checkLength(d)) return new int[length];
+        if (checked && !(checkLength(c) & checkLength(d))) {
+            return new int[length];
+        }
         
         int[] ans = new int[length];        
         for (int i = 0; i < length; i++) {
@@ -105,7 +129,7 @@ public class ArrayOp
      * message if the length of c and d are not equal to n.
      */
     public int[] substract(int[] c, int[] d) {        
-        if (!greater(c, d)) {
+        if (checked && !greater(c, d)) {
             System.out.println(c + " must be greater then " + d);      
             return new int[length];
         } 
@@ -125,7 +149,7 @@ public class ArrayOp
      */
     public int I(int[] c)   
     {
-        if (!checkLength(c)) return 0;
+        if (checked && !checkLength(c)) return 0;
         int ans = 0;        
         for (int i = 0; i < length; i++) {
             ans = ans + (i + 1) * c[i];
@@ -158,15 +182,35 @@ public class ArrayOp
      */
     public long J(int[] c)    
     {
-        if (!checkLength(c)) return 0;
+        if (checked && !checkLength(c)) return 0;
         long ans = 1;        
         for (int i = 0; i < length; i++)
         {
-            ans = ans * ((long) Math.pow(i + 1, c[i]));
+            if (c[i] > 0) {
+                ans = ans * pow[i][c[i]];
+            }
         }        
         return ans; 
     }
     
+    /**
+     * Product of componentwise binomial coefficients only to the given 
+     * index. Every component of the first input must be greater or equal 
+     * to the second input, and d must be 0 from index on. 
+     * @param c int[]
+     * @param d int[]
+     * @param index int
+     * @return The product of C[ci][di] for i < index. 
+     */
+    public long binom(int[] c, int[] d, int index) 
+    {
+        long ans = 1;
+        for (int i = 0; i < index; i++) {
+            ans = ans * C[c[i]][d[i]];
+        }          
+        return ans; 
+    }
+    
     /**
      * Compute |c|.
      * @param c int[]
@@ -193,7 +237,7 @@ public class ArrayOp
     {
         long ans = 1;
         // Send error message if c is not >= d
-        if (!greater(c, d)) {
+        if (checked && !greater(c, d)) {
             System.out.println(c + " must be greater than " + d);
             return 0;        
         }
@@ -201,7 +245,7 @@ public class ArrayOp
         // Now c >=d, only need to multiply C[c_i][d_i] in their common range
         // Outside common range, d_i must be zero. C gives 1.        
         for (int i = 0; i < length; i++) {
-            if (c[i] > length) {
+            if (checked && c[i] > length) {
                 System.out.println(c + " is too big." +  
                            "       Please initiate a larger object.");
                 return 0;
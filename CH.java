@@ -1,11 +1,11 @@
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.io.PrintWriter;
 import java.io.File;
 import java.io.IOException;
 import java.util.Scanner;
 import java.lang.StringBuilder; 
+import java.util.concurrent.CompletableFuture;
 /**
  * <p>
  * This CH class implements the recursive formula of Caporaso-Harris in 
@@ -36,28 +36,33 @@ import java.lang.StringBuilder;
  * wdeg r = 0, wdeg b = 2, wdeg c = 3, .....
  * <p>
  * Notes on algorithm: <br>
- * This class and F0Table uses the same algorithm. 
+ * This class and F0Table use the same algorithm, the one of Recursion 
+ * with the Surface Plane. The recursion only shifts r, so 
+ * N(d, r, alpha, beta) for all r are kept as one vector per (alpha, beta) 
+ * and computed together. This class only writes the layers. 
  * @author Yu-jong Tzeng
  * @version 3.0
  * @since August 24, 2019.
  */
 
 public class CH {
-    private static int deg;
-    private static int maxNode;
-    private static int maxLength;
-    private static ArrayOp arrOP;   
+    private final int deg;
+    private final int maxNode;
     /**
      * The number of different degrees which will be printed out. 
      * The output will will contain CH invariants for d = 
      * (maxNode -printLast +1) to maxNode. 
      */
-    public static int printLast;        
-    private static int wDeg;        
-    private HashMap<ArrayList<Integer>, Long> prevMap;
-    private HashMap<ArrayList<Integer>, Long> curSave;   
-    private HashMap<ArrayList<Integer>, Long> curDump;   
-    private Partitions parArr; 
+    public int printLast;        
+    /**
+     * The directory in which the layers are kept for later runs (see
+     * LayerStore), or null to keep none. null by default.
+     */
+    public File state;
+    private final int wDeg;        
+    private final Partitions parArr; 
+    // the layers d = 1,..., deg, sliced by r = 0,...,maxNode
+    private final Recursion rec;
     /**
     * The constructor of the class.
     * @param deg The maximal degree of the curve. 
@@ -66,21 +71,16 @@ public class CH {
     public CH (int deg, int maxNode) {
         this.deg = deg;
         this.maxNode = maxNode; 
-        // maxLength = |beta'| <= d
-        maxLength = deg;           
-        arrOP = new ArrayOp(maxLength);      
         printLast = deg;
         wDeg = 10;
-        parArr = new Partitions(deg, maxLength);
-        prevMap = new HashMap<>();
-        curSave = new HashMap<>();
-        curDump = new HashMap<>();
+        rec = new Recursion(new Plane(deg), maxNode);
+        parArr = rec.partitions();
     }    
     /** 
      * The main method of the class.
      * Paramaters deg and maxNode are initialzed by user input. Then the 
      * program will compute CH invariants and generate output. 
-     * @param args Unused
+     * @param args The directory of state, if any.
      */
     public static void main(String[] args) {
         Scanner reader = new Scanner(System.in);  // Reading from System.in
@@ -96,6 +96,9 @@ public class CH {
                            "../output/CH\n");
         reader.close();                 
         CH ch = new CH(deg, maxNode);
+        if (args.length > 0) {
+            ch.state = new File(args[0]);
+        }
         ch.compute();
     }
     
@@ -103,164 +106,86 @@ public class CH {
      * Put N(O(d), r, alpha and beta) into dictionary 
      * for given d, r = 0,...,maxNode and all valid alpha and beta.
      * If d >= deg - printLast, write the result in the output file. 
+     * The output of a layer is written by another thread while the next 
+     * layer is computed, and the next write waits for it, so at most two 
+     * printed layers are kept in memory. If printLast < deg, 
+     * the layers before are only computed where the output needs them. 
+     * It may be called again, e.g. after changing printLast or state. 
      */
-    private void compute() {
+    public void compute() {
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        // forget the last run, if any
+        rec.restart();
+        if (state != null) {
+            rec.store(state);
+        }
+        if (printLast < deg) {
+            for (int d = Math.max(deg - printLast + 1, 1); d <= deg; d++) {
+                rec.want(d - 1, d);
+            }
+        }
         for (int d = 1; d <= deg - printLast; d++) {
             System.out.println("Computing d = " + d);
-            prevMap = curSave;
-            curSave = new HashMap<>();  
-            curDump = new HashMap<>();   
-            HashMap<ArrayList<Integer>, Long> cur = curDump;
-            // Compute N and put in the table
-            for (int r = 0, j = d; r <= maxNode && j >=0; r++, j--) {       
-                if (j <= maxNode) {cur = curSave;}
-                for (int[] alpha : parArr.get(j)) {
-                    for (int[] beta : parArr.get(d - j)) {
-                        long ansN = N(d, r, alpha, beta);
-                        cur.put(Key.make(r, alpha, beta), ansN);
-                    }
-                }
-            }     
+            rec.next();
         }       
         for (int d = Math.max(deg - printLast + 1, 1); d <= deg; d++) {
             System.out.println("Computing d = " + d);
-            prevMap = curSave;
-            curSave = new HashMap<>();
-            curDump = new HashMap<>();
-            HashMap<ArrayList<Integer>, Long> cur = curDump;
-            for (int r = 0; r <= maxNode; r++) {
-                if (d == deg) {
-                    curSave = new HashMap<>();
-                    curDump = new HashMap<>();
-                    cur = curDump;
-                }
-                try {
-                    File outputfile = new File("output/CH/O("+ d + ")_r=" 
-                        + r + ".txt");
-                    File genFun = new File("output/genFunCH/O("+ d + ")_r=" 
-                        + r + ".txt"); 
-                    outputfile.getParentFile().mkdirs();
-                    genFun.getParentFile().mkdirs();
-                    PrintWriter pw = new PrintWriter(outputfile, "UTF-8");
-                    PrintWriter gen = new PrintWriter(genFun, "UTF-8");
-                    for (int j = d; j > 4; j--) {
-                        if (j <= maxNode) {cur = curSave;}
-                        for (int[] alpha : parArr.get(j)) {
-                            for (int[] beta : parArr.get(d - j)) {
-                                long ansN = N(d, r, alpha, beta);
-                                cur.put(Key.make(r, alpha, beta), ansN);
-                                pw.printf("N(O(%d), %d, %s, %s) = %d\n", 
-                                    d, r, MyF.str(alpha), MyF.str(beta), ansN);
-                            }
-                        }    
-                    }
-                    for (int j = Math.min(4, d); j >= 0; j--) {
-                        if (j <= maxNode) {cur = curSave;}
-                        for (int[] alpha : parArr.get(j)) {
-                            gen.println("alpha = " + MyF.str(alpha));
-                            for (int[] beta : parArr.get(d - j)) {
-                                long ansN = N(d, r, alpha, beta);
-                                cur.put(Key.make(r, alpha, beta), ansN);
-                                pw.printf("N(O(%d), %d, %s, %s) = %d\n", 
-                                    d, r, MyF.str(alpha), MyF.str(beta), ansN);
-                                if (d - j - beta[0] <= wDeg) {
-                                    gen.printf(ansN + MyF.toVar(beta) + "+" );                                
-                                }      
-                            }
-                            gen.println("\n");
-                        }    
-                    }
-                    pw.close();
-                    gen.close();
-                } 
-                catch (IOException e) {
-                    System.out.println("There is an error in I/O.");
-                }       
-            }    
-            /*System.out.println("curSave:");
-            for (ArrayList<Integer> key: curSave.keySet()) {
-                System.out.println(key + curSave.get(key));
-            }
-            System.out.println("curDump:");
-            for (ArrayList<Integer> key: curDump.keySet()) {
-                System.out.println(key + curDump.get(key));
-            }
-            System.out.println("prevMap:");
-            for (ArrayList<Integer> key: prevMap.keySet()) {
-                System.out.println(key + prevMap.get(key));
-            }*/
+            LayerTable layer = rec.next();
+            int dd = d;
+            // the previous write is finished first, as in HirTable
+            written.join();
+            written = CompletableFuture.runAsync(() -> write(dd, layer));
         }       
-    }    
-    /** 
-     * The recursive formula is implemented here. 
+        written.join();
+    }
+    /**
+     * Write N(O(d), r, alpha, beta) in the layer of degree d into the 
+     * output files. 
      */
-    private long N(int d, int r, int[] alpha, int[] beta) {  
-        if (arrOP.I(alpha) + arrOP.I(beta) != d) {
-            System.out.format("I(%s) + I(%s) must equal to %d\n", 
-                               MyF.str(alpha), MyF.str(beta), d);
-            return 0; 
-        }    
-        if (d <= 0) {
-            System.out.format("Degree should be positive: " + d);
-            return -2;
-        }
-        if (r < 0) {
-            System.out.format("The number of nodes can't be negative: " + r);
-            return -3;
-        }
-        if (d == 1 && r == 0 ) return 1;
-        if (d == 1 && r != 0 ) return 0;        
-        //now d >=2
-        long ans = 0 ;        
-        for (int k = 0; k < maxLength; k++) { // the first term
-            if (beta[k] > 0) {
-                int[] tempAlpha = alpha.clone();
-                int[] tempBeta = beta.clone();
-                tempAlpha[k] = alpha[k] + 1;  //alpha_+e_k, beta-e_k
-                tempBeta[k] = beta[k] - 1;    
-                ArrayList<Integer> key = Key.make(r, tempAlpha, tempBeta);
-                if (curSave.containsKey(key)) {
-                    ans = ans + (k + 1) * 
-                        curSave.get(key);
-                }
-                else if (curDump.containsKey(key)) {
-                    ans = ans + (k + 1) * 
-                        curDump.get(key);
+    private void write(int d, LayerTable layer) {
+        for (int r = 0; r <= maxNode; r++) {
+            try {
+                File outputfile = new File("output/CH/O("+ d + ")_r=" 
+                    + r + ".txt");
+                File genFun = new File("output/genFunCH/O("+ d + ")_r=" 
+                    + r + ".txt"); 
+                outputfile.getParentFile().mkdirs();
+                genFun.getParentFile().mkdirs();
+                PrintWriter pw = new PrintWriter(outputfile, "UTF-8");
+                PrintWriter gen = new PrintWriter(genFun, "UTF-8");
+                for (int j = d; j > 4; j--) {
+                    for (int ia = 0; ia < parArr.size(j); ia++) {
+                        int[] alpha = parArr.unrank(j, ia);
+                        for (int ib = 0; ib < parArr.size(d - j); ib++) {
+                            int[] beta = parArr.unrank(d - j, ib);
+                            long ansN = layer.get(layer.index(r, j, ia, ib));
+                            pw.printf("N(O(%d), %d, %s, %s) = %d\n", 
+                                d, r, MyF.str(alpha), MyF.str(beta), ansN);
+                        }
+                    }    
                 }
-                else {
-                    System.out.format("Finding N(%d, %d, %s, %s)\n", 
-                                    d, r, MyF.str(alpha), MyF.str(beta));
-                    System.out.format("N(%d, %d, %s, %s) can't be found.\n", 
-                        d, r, MyF.str(tempAlpha), MyF.str(tempBeta));
-                }                                    
-            }                
-        }        
-        // the second term
-        for (int j = Math.max(0, arrOP.sum(beta) - r + d- 1); j < d; j++) {
-            for (int[] bP : parArr.get(j)) {
-                for (int[] aP : parArr.get(d - 1 - j)) {
-                    if (arrOP.greater(alpha, aP) && arrOP.greater(bP, beta)) {
-                        int[] gamma = arrOP.substract(bP, beta);
-                        int rP = r + arrOP.sum(gamma) - d + 1;
-                        if (rP >= 0 && rP <= maxNode) {
-                            ArrayList<Integer> key = Key.make(rP, aP, bP);
-                            if (prevMap.containsKey(key)) {
-                                long coeff = arrOP.J(gamma) * 
-                                    arrOP.binom(alpha, aP) * arrOP.binom(bP, beta);
-                                ans = ans + 
-                                    coeff * prevMap.get(key);
-                            }
-                            else { // Table doesn't contain this term
-                                System.out.format("Finding N(%d, %d, %s, %s)\n", 
-                                    d, r, MyF.str(alpha), MyF.str(beta));
-                                System.out.format("N(%d, %d, %s, %s) not found.\n", 
-                                    d - 1, rP, MyF.str(aP), MyF.str(bP));
-                            }              
+                for (int j = Math.min(4, d); j >= 0; j--) {
+                    for (int ia = 0; ia < parArr.size(j); ia++) {
+                        int[] alpha = parArr.unrank(j, ia);
+                        gen.println("alpha = " + MyF.str(alpha));
+                        for (int ib = 0; ib < parArr.size(d - j); ib++) {
+                            int[] beta = parArr.unrank(d - j, ib);
+                            long ansN = layer.get(layer.index(r, j, ia, ib));
+                            pw.printf("N(O(%d), %d, %s, %s) = %d\n", 
+                                d, r, MyF.str(alpha), MyF.str(beta), ansN);
+                            if (d - j - beta[0] <= wDeg) {
+                                gen.printf(ansN + MyF.toVar(beta) + "+" );                                
+                            }      
                         }
-                    }
-                }                
-            }
-        }    
-        return ans;                                     
-    }                                
+                        gen.println("\n");
+                    }    
+                }
+                pw.close();
+                gen.close();
+            } 
+            catch (IOException e) {
+                System.out.println("There is an error in I/O.");
+            }       
+        }
+    }
 }
@@ -0,0 +1,183 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Coefficients class caches the two factors of the coefficients in
+ * the second term of the recursive formulae,
+ * J(gamma) binom(alpha, alpha') binom(beta', beta), where
+ * beta' = beta + gamma. The factors are kept apart: <br>
+ * below(k, i, w)[s] = binom(alpha, alpha') for alpha = get(k).get(i) and
+ * alpha' the s-th partition of Dominance.below(k, i, w), <br>
+ * above(k, i, w)[t] = J(gamma) binom(beta', beta) for beta = get(k).get(i)
+ * and beta' the t-th partition of Dominance.above(k, i, w). <br>
+ * So a coefficient is the product of two cached numbers.
+ * <p>
+ * The lists are computed the first time they are asked for. If more than
+ * maxSize numbers are stored, the cache is emptied and filled again. The
+ * cache may be used by several threads at once. The numbers of hits and
+ * misses are counted to help choosing maxSize.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class Coefficients
+{
+    private Partitions parArr;
+    private Dominance dom;
+    private ArrayOp arrOP;
+    private long maxSize;
+    // the keys are (k, i, w) packed by key
+    private ConcurrentHashMap<Long, long[]> below;
+    private ConcurrentHashMap<Long, long[]> above;
+    private AtomicLong size;
+    private AtomicLong hits;
+    private AtomicLong misses;
+
+    /**
+     * Constructor for objects of class Coefficients.
+     * @param parArr The partitions.
+     * @param dom The dominance lists over parArr.
+     * @param arrOP For the binomial coefficients.
+     * @param maxSize The max number of coefficients stored.
+     */
+    public Coefficients(Partitions parArr, Dominance dom, ArrayOp arrOP,
+                        long maxSize) {
+        this.parArr = parArr;
+        this.dom = dom;
+        this.arrOP = arrOP;
+        this.maxSize = maxSize;
+        below = new ConcurrentHashMap<Long, long[]>();
+        above = new ConcurrentHashMap<Long, long[]>();
+        size = new AtomicLong();
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+
+    /**
+     * Return binom(alpha, alpha') for all alpha' in Dominance.below(k, i, w).
+     * @param k I(alpha)
+     * @param i The index of alpha in Partitions.get(k).
+     * @param w I(alpha')
+     * @return The binomial coefficients, in the order of Dominance.below.
+     */
+    public long[] below(int k, int i, int w) {
+        Long key = key(k, i, w);
+        long[] ans = below.get(key);
+        if (ans != null) {
+            hits.incrementAndGet();
+            return ans;
+        }
+        misses.incrementAndGet();
+        int[] alpha = parArr.unrank(k, i);
+        int[] list = dom.below(k, i, w);
+        ans = new long[list.length];
+        for (int s = 0; s < list.length; s++) {
+            // alpha' <= alpha is 0 where alpha is
+            ans[s] = arrOP.binom(alpha, parArr.unrank(w, list[s]),
+                                 parArr.length(k, i));
+        }
+        store(below, key, ans);
+        return ans;
+    }
+
+    /**
+     * Return J(gamma) binom(beta', beta) for all beta' = beta + gamma in
+     * Dominance.above(k, i, w).
+     * @param k I(beta)
+     * @param i The index of beta in Partitions.get(k).
+     * @param w I(beta')
+     * @return The coefficients, in the order of Dominance.above.
+     */
+    public long[] above(int k, int i, int w) {
+        Long key = key(k, i, w);
+        long[] ans = above.get(key);
+        if (ans != null) {
+            hits.incrementAndGet();
+            return ans;
+        }
+        misses.incrementAndGet();
+        int[] beta = parArr.unrank(k, i);
+        int[] list = dom.above(k, i, w);
+        ans = new long[list.length];
+        for (int t = 0; t < list.length; t++) {
+            // gamma is the partition of w - k with index t
+            ans[t] = parArr.J(w - k, t)
+                     * arrOP.binom(parArr.unrank(w, list[t]), beta,
+                                   parArr.length(w, list[t]));
+        }
+        store(above, key, ans);
+        return ans;
+    }
+
+    /**
+     * Drop the lists of all (k, i, w) with k > maxWeight or w > maxWeight,
+     * as Dominance.keep.
+     * @param maxWeight The largest weight which will be asked for again.
+     */
+    public void keep(int maxWeight) {
+        keep(below, maxWeight);
+        keep(above, maxWeight);
+    }
+
+    /**
+     * Return the number of lists found in the cache.
+     * @return long
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Return the number of lists which had to be computed.
+     * @return long
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Return the number of coefficients stored now.
+     * @return long
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Return the counters as "hits = .., misses = .., size = ..".
+     * @return String
+     */
+    public String toString() {
+        return "hits = " + hits() + ", misses = " + misses()
+               + ", size = " + size();
+    }
+
+    private void store(ConcurrentHashMap<Long, long[]> map, Long key,
+                       long[] value) {
+        if (size.addAndGet(value.length) > maxSize) {
+            below.clear();
+            above.clear();
+            size.set(value.length);
+        }
+        map.put(key, value);
+    }
+
+    private void keep(ConcurrentHashMap<Long, long[]> map, int maxWeight) {
+        Iterator<Map.Entry<Long, long[]>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, long[]> e = it.next();
+            long key = e.getKey();
+            if ((key >>> 48) > maxWeight || ((key >>> 32) & 0xFFFF) > maxWeight) {
+                size.addAndGet(-e.getValue().length);
+                it.remove();
+            }
+        }
+    }
+
+    private static Long key(int k, int i, int w) {
+        return ((long) k << 48) | ((long) w << 32) | i;
+    }
+}
@@ -18,9 +18,9 @@ public class Complexity
     public int[] numN = new int[length];
     public long[] space = new long[length];
     public long[] time =  new long[length];
-    private arrayOP arrOP = new arrayOP(length);  
+    private ArrayOp arrOP = new ArrayOp(length);  
     public long count = 0;
-    partitions parArr = new partitions(length, length);
+    Partitions parArr = new Partitions(length, length);
     
     public Complexity()  
     {
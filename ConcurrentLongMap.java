@@ -0,0 +1,156 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The ConcurrentLongMap class is a hash table from keys packed by KeyCodec
+ * to long values which can be used by many threads at once. Readers never
+ * lock or wait; writers claim slots by compare-and-set. Like LongMap it uses open addressing with linear probing over primitive
+ * arrays, but its capacity is fixed when it is built, since the number of
+ * entries of a layer is known in advance.
+ * <p>
+ * Every entry is published once: put claims an empty slot by a
+ * compare-and-set on its state, writes the key and the value, and then
+ * sets the state to published. A reader only compares the key of a
+ * published slot, so it sees the key and the value written before the
+ * state (the volatile write of the state orders them). A reader skips a
+ * slot being written, as if its key were not put yet. put waits for such
+ * a slot before comparing its key, i.e. each slot is a spin lock for the
+ * writers passing it, so a key can only be put once; later puts of the
+ * same key are ignored.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class ConcurrentLongMap
+{
+    private static final int EMPTY = 0;
+    private static final int CLAIMED = 1;
+    private static final int PUBLISHED = 2;
+
+    private int width;
+    private int capacity;
+    // keys[width * s,..., width * s + width - 1] is the key in slot s
+    private long[] keys;
+    private long[] values;
+    private AtomicIntegerArray state;
+
+    /**
+     * Constructor for objects of class ConcurrentLongMap.
+     * @param width The number of longs in each key.
+     * @param expected The max number of entries.
+     */
+    public ConcurrentLongMap(int width, int expected) {
+        this.width = width;
+        capacity = 16;
+        while (capacity < 2 * expected) {
+            capacity *= 2;
+        }
+        keys = new long[capacity * width];
+        values = new long[capacity];
+        state = new AtomicIntegerArray(capacity);
+    }
+
+    /**
+     * Return the slot of a key.
+     * @param key long[] of length width
+     * @return The slot of key, or -1 if the key has not been published.
+     */
+    public int indexOf(long[] key) {
+        int s = hash(key) & (capacity - 1);
+        for (int probe = 0; probe < capacity; probe++) {
+            int st = state.get(s);
+            if (st == EMPTY) return -1;
+            // a slot being written is skipped
+            if (st == PUBLISHED && equal(s, key)) return s;
+            s = (s + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Return the value in the given slot.
+     * @param slot A slot returned by indexOf.
+     * @return The value stored in this slot.
+     */
+    public long valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Return the value of a key.
+     * @param key long[] of length width
+     * @return The value of key, or 0 if the table doesn't contain key.
+     */
+    public long get(long[] key) {
+        int s = indexOf(key);
+        return (s >= 0) ? values[s] : 0;
+    }
+
+    /**
+     * Put the key and value into the table, if the key is not in it yet.
+     * The key array is copied, so it can be reused by the caller.
+     * @param key long[] of length width
+     * @param value long
+     * @return True if the entry is put, false if the key was put before.
+     * @throws IllegalStateException if all slots are used.
+     */
+    public boolean put(long[] key, long value) {
+        int s = hash(key) & (capacity - 1);
+        for (int probe = 0; probe < capacity; probe++) {
+            if (state.get(s) == EMPTY && state.compareAndSet(s, EMPTY, CLAIMED)) {
+                System.arraycopy(key, 0, keys, s * width, width);
+                values[s] = value;
+                state.set(s, PUBLISHED);
+                return true;
+            }
+            await(s);
+            if (equal(s, key)) return false;
+            s = (s + 1) & (capacity - 1);
+        }
+        throw new IllegalStateException("The table is full.");
+    }
+
+    /**
+     * Return the number of published entries. This counts all slots, so
+     * it is meant for tests and statistics only.
+     * @return int
+     */
+    public int size() {
+        int ans = 0;
+        for (int s = 0; s < capacity; s++) {
+            if (state.get(s) == PUBLISHED) ans++;
+        }
+        return ans;
+    }
+
+    /**
+     * Wait until slot s is not being written by another put and return its
+     * state.
+     */
+    private int await(int s) {
+        int st = state.get(s);
+        while (st == CLAIMED) {
+            Thread.yield();
+            st = state.get(s);
+        }
+        return st;
+    }
+
+    /**
+     * Return true if the key in slot s equals key.
+     */
+    private boolean equal(int s, long[] key) {
+        int base = s * width;
+        for (int i = 0; i < width; i++) {
+            if (keys[base + i] != key[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The same hash as LongMap.
+     */
+    private int hash(long[] key) {
+        return LongMap.hash(key, 0, width);
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+
+/**
+ * The Dominance class lists, for a partition p and a weight w, the
+ * partitions of w which are componentwise less or equal to p (below) and
+ * those which are componentwise greater or equal to p (above). These are
+ * the only alpha' and beta' which appear in the second term of the
+ * recursive formulae, so the second term does not have to test every pair
+ * of partitions of the right weights.
+ * <p>
+ * Partitions are given by their indices in Partitions.get(k). The lists
+ * are built the first time they are asked for and then kept until keep
+ * or trim drops them. below tests the partitions of w with the signatures
+ * of Partitions.leq. The class is not thread-safe, so the caller drops
+ * lists only when no other thread reads them.
+ * <p>
+ * The partitions above p of weight w are p + gamma where gamma runs over
+ * Partitions.get(w - I(p)), in this order. So the t-th entry of above
+ * also gives gamma = beta' - beta without substracting.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class Dominance
+{
+    private static final int[] EMPTY = new int[0];
+
+    private Partitions parArr;
+    private int n;
+    private int maxL;
+    private long maxSize;
+    // the number of indices in all lists
+    private long size;
+    // below[k][i][w] and above[k][i][w] for p = get(k).get(i)
+    private int[][][][] below;
+    private int[][][][] above;
+
+    /**
+     * Constructor for objects of class Dominance, which keeps all lists.
+     * @param parArr The partitions of all integers <= n.
+     */
+    public Dominance(Partitions parArr) {
+        this(parArr, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor for objects of class Dominance.
+     * @param parArr The partitions of all integers <= n.
+     * @param maxSize The max number of indices kept after trim.
+     */
+    public Dominance(Partitions parArr, long maxSize) {
+        this.parArr = parArr;
+        this.maxSize = maxSize;
+        n = parArr.max();
+        maxL = parArr.length();
+        below = new int[n + 1][][][];
+        above = new int[n + 1][][][];
+        for (int k = 0; k <= n; k++) {
+            below[k] = new int[parArr.size(k)][][];
+            above[k] = new int[parArr.size(k)][][];
+        }
+    }
+
+    /**
+     * Return the indices of all partitions q of w with q <= p, in the
+     * order of Partitions.get(w).
+     * @param k I(p)
+     * @param index The index of p in Partitions.get(k).
+     * @param w The weight of q.
+     * @return The indices of q in Partitions.get(w).
+     */
+    public int[] below(int k, int index, int w) {
+        if (w < 0 || w > k) return EMPTY;
+        if (below[k][index] == null) {
+            below[k][index] = new int[k + 1][];
+        }
+        int[] ans = below[k][index][w];
+        if (ans == null) {
+            ans = new int[parArr.size(w)];
+            int m = 0;
+            for (int i = 0; i < ans.length; i++) {
+                if (parArr.leq(w, i, k, index)) {
+                    ans[m] = i;
+                    m++;
+                }
+            }
+            ans = Arrays.copyOf(ans, m);
+            below[k][index][w] = ans;
+            size += m;
+        }
+        return ans;
+    }
+
+    /**
+     * Drop the lists of all p or w with weight > maxWeight. HirTable calls
+     * this after each layer, since the weights of its layers decrease.
+     * @param maxWeight The largest weight which will be asked for again.
+     */
+    public void keep(int maxWeight) {
+        for (int k = 0; k <= n; k++) {
+            for (int i = 0; i < below[k].length; i++) {
+                if (k > maxWeight) {
+                    size -= count(below[k][i], 0) + count(above[k][i], 0);
+                    below[k][i] = null;
+                    above[k][i] = null;
+                }
+                else if (above[k][i] != null) {
+                    size -= count(above[k][i], maxWeight + 1);
+                    for (int w = maxWeight + 1; w <= n; w++) {
+                        above[k][i][w] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop all lists if more than maxSize indices are kept. They are built
+     * again when asked for.
+     */
+    public void trim() {
+        if (size <= maxSize) return;
+        for (int k = 0; k <= n; k++) {
+            Arrays.fill(below[k], null);
+            Arrays.fill(above[k], null);
+        }
+        size = 0;
+    }
+
+    /**
+     * Return the number of indices in all lists kept now.
+     * @return long
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Return the number of indices in lists[from],..., or 0 for null.
+     */
+    private static long count(int[][] lists, int from) {
+        long ans = 0;
+        for (int w = from; lists != null && w < lists.length; w++) {
+            if (lists[w] != null) {
+                ans += lists[w].length;
+            }
+        }
+        return ans;
+    }
+
+    /**
+     * Return the indices of all partitions p + gamma of w, where gamma
+     * runs over Partitions.get(w - k).
+     * @param k I(p)
+     * @param index The index of p in Partitions.get(k).
+     * @param w The weight of p + gamma.
+     * @return The indices of p + gamma in Partitions.get(w).
+     */
+    public int[] above(int k, int index, int w) {
+        if (w < k || w > n) return EMPTY;
+        if (above[k][index] == null) {
+            above[k][index] = new int[n + 1][];
+        }
+        int[] ans = above[k][index][w];
+        if (ans == null) {
+            int[] p = parArr.unrank(k, index);
+            int[] sum = new int[maxL];
+            ans = new int[parArr.size(w - k)];
+            // p + gamma is 0 from position w on
+            int m = Math.min(maxL, w);
+            for (int t = 0; t < ans.length; t++) {
+                int[] gamma = parArr.unrank(w - k, t);
+                for (int c = 0; c < m; c++) {
+                    sum[c] = p[c] + gamma[c];
+                }
+                ans[t] = parArr.rank(sum);
+            }
+            above[k][index][w] = ans;
+            size += ans.length;
+        }
+        return ans;
+    }
+}
@@ -1,6 +1,5 @@
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.io.PrintWriter;
 import java.io.File;
 import java.io.IOException;
@@ -24,27 +23,20 @@ import java.util.Scanner;
  * the curve the program will compute.  <br>
  * 
  * The program will check N(i, b, g', alpha, beta) for all i <= a, 0 <= g' <= g,
- * and all valid alpha and beta. 
+ * and all valid alpha and beta. The numbers are computed by Recursion with 
+ * the Surface Hirzebruch for n = 0, as in F0table. 
  * 
  * @author Yu-jong Tzeng
  * @version 2.0
  * @since August 24, 2019.
  */
 public class F0decreaseCheck {  
-    private static int a;
-    private static int b;         
-    private static int gdiff;
-    private static int maxLength;
-    private static ArrayOp arrOP;
-    /**
-     * The number of different first degrees of the curve class which will 
-     * be printed out. 
-     * The output will will contain number of curves in |O(i,b)| for i = 
-     * (a - printLast + 1) to a.
-     */ 
-    private static HashMap<ArrayList<Integer>, Long> prevMap;
-    private static HashMap<ArrayList<Integer>, Long> curMap;   
-    private Partitions parArr; 
+    private final int a;
+    private final int b;         
+    private final int gdiff;
+    private final Partitions parArr; 
+    // the layers O(i, b), i = 0,..., a, sliced by g = g_a(i, b) - s
+    private final Recursion rec;
 
     /**
      * The constructor of the class.
@@ -57,12 +49,8 @@ public class F0decreaseCheck {
         this.a = a;
         this.b = b;
         this.gdiff = gdiff;       
-        maxLength = b;    
-
-        arrOP = new ArrayOp(maxLength);  
-        parArr = new Partitions(b, maxLength);
-        prevMap = new HashMap<ArrayList<Integer>, Long>();
-        curMap = new HashMap<ArrayList<Integer>, Long>();
+        rec = new Recursion(new Hirzebruch(0, a, b), gdiff);
+        parArr = rec.partitions();
     }
     
     /** 
@@ -96,96 +84,31 @@ public class F0decreaseCheck {
     }
     
     /** 
-     * Run this method to compute and create output file.  
+     * Run this method to compute N(O(i, b), g, alpha, beta) for i = 0,..., a 
+     * and check that they are non-increasing in alpha. 
      */
-    private void compute() {
-        // Here we put N(O(i, b), all valid alpha and beta) into dictionary
+    public void compute() {
         for (int i = 0; i <= a; i++) {
             System.out.println("Computing a = " + i);
-            prevMap = curMap;
-            curMap = new HashMap<ArrayList<Integer>, Long>();                                      
-            // Compute N and put in the table           
+            LayerTable layer = rec.next();
             for (int g = MyF.g_a(i, b) - gdiff; g <= MyF.g_a(i, b); g++) {                
                 for (int j = 0; j <= b; j++) {
-                    for (int[] beta : parArr.get(j)) {
+                    for (int ib = 0; ib < parArr.size(j); ib++) {
+                        int[] beta = parArr.unrank(j, ib);
                         long lastN = Long.MAX_VALUE;
-                        //System.out.print(MyF.str(beta));
-                        for (int[] alpha : parArr.get(b - j)) {                                
-                            long ansN =  N(i, b, g, alpha, beta);
-                            curMap.put(Key.make(i, b, g, alpha, beta), ansN);
+                        for (int ia = 0; ia < parArr.size(b - j); ia++) {
+                            int[] alpha = parArr.unrank(b - j, ia);
+                            long ansN = layer.get(layer.index(MyF.g_a(i, b) - g, 
+                                                              b - j, ia, ib));
                             if (lastN < ansN) {
                                 System.out.format("N(%d, %d, %d, %s, %s) > %d\n"
                                     , i, b, g, MyF.str(alpha), MyF.str(beta), lastN);
                             }
-                            //System.out.print(ansN + " >= "); 
                             lastN = ansN;   
                         }  
-                        //System.out.println();
                     }
                 }
             }
         }                   
     }    
-    /** 
-     * The recursive formula is implemented here. 
-     */
-    private long N(int aa, int bb, int g, int[] alpha, int[] beta) {
-        long ans = 0 ;        
-        // invalid parameters
-        if (arrOP.I(alpha) + arrOP.I(beta) != b  || aa < 0 || bb < 0) {
-            return 0;             
-        }
-        // Base case. Only fiber class passing through points. 
-        // from the beginning of Section 8. 
-        else if (aa == 0 && arrOP.I(beta) == 0) { 
-            if (alpha[0] == arrOP.sum(alpha) && g == 1 - bb ) {
-                return 1;    
-            }
-            else {
-                return 0;
-            }
-        }               
-        for (int k = 0; k < maxLength; k++) {    // the first term
-            if (beta[k] > 0) {
-                int[] tempAlpha = alpha.clone();
-                int[] tempBeta = beta.clone();
-                //alpha_+e_k, beta-e_k
-                tempAlpha[k] = alpha[k] + 1;
-                tempBeta[k] = beta[k] - 1;  
-                if (curMap.containsKey(Key.make(aa, bb, g, tempAlpha, tempBeta))) 
-                    ans = ans + (k + 1) * 
-                        curMap.get(Key.make(aa, bb, g, tempAlpha, tempBeta));
-                else 
-                    System.out.format("N(%d, %d, %d, %s, %s) can't be found.\n",
-                                aa, bb, g, MyF.str(tempAlpha), MyF.str(tempBeta));
-            }                
-        }        
-        if (aa > 0) {                              // the second term
-            for (int j = arrOP.sum(beta) - MyF.g_a(aa, bb) + g + b; j <= bb; j++) {
-                for (int[] bP : parArr.get(j)) {
-                    for (int[] aP : parArr.get(bb - j)) {
-                        if (arrOP.greater(alpha, aP) && arrOP.greater(bP, beta)) {
-                            int[] gamma = arrOP.substract(bP, beta);
-                            int gP = g - arrOP.sum(gamma) + 1;
-                            if (gP <= MyF.g_a(aa - 1, bb) && gP >= MyF.g_a(aa - 1, bb) - gdiff) {
-                                if (prevMap.containsKey(Key.make(aa - 1, bb, gP, aP, bP))) {
-                                    long coeff = arrOP.J(gamma) * arrOP.binom(alpha, aP) 
-                                                 * arrOP.binom(bP, beta);
-                                    ans = ans + coeff * prevMap.get(Key.make(aa - 1, bb, gP, aP, bP));
-                                }
-                                else { // Table doesn't contain this term
-                                    System.out.format("Finding N(%d, %d, %d, %s, %s)\n",
-                                        aa, bb, g, MyF.str(alpha), MyF.str(beta));
-                                    System.out.format("N(%d, %d, %d, %s, %s) can't be found.\n", 
-                                        a - 1, bb, gP, MyF.str(aP), MyF.str(bP));
-                                }
-                            }
-                        }    
-                    }
-                }                
-            }
-        }    
-        return ans; 
-    }                        
-}    
-
+}
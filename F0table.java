@@ -1,10 +1,10 @@
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.io.PrintWriter;
 import java.io.File;
 import java.io.IOException;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>
@@ -36,13 +36,17 @@ import java.util.Scanner;
  * <p>
  * Note on algorithm:  <br />
  * alpha and beta are stored by integer arrays. The length of them (and 
- * variations) are of fixed length = maxLength = b + maxNode + 1. This is 
- * because <br>
- * g' = g-|gamma|+1 --> |gamma| <= g - g' + 1 = maxNode +1 
+ * variations) is fixed, length = b (at least 1). This is because every 
+ * layer O(i, b) has I(alpha) + I(beta) = b, and the second term only uses 
+ * beta' = beta + gamma of the layer before, so |beta'| <= I(beta') <= b. 
  * <br>
- * maxLength = |beta'| = |beta+gamma| <= |beta|+|gamma| <= b+ maxNode +1.
+ * The methods of ArrayOp only check the length of their inputs in the 
+ * checked (debug) mode. 
  * <br>
- * All methods in arrayOP will check if the length of inputs equals maxLength. 
+ * The layers O(i, b) are computed by Recursion with the Surface 
+ * Hirzebruch for n = 0, which is P^1*P^1. The recursion only shifts g, so 
+ * N(i, b, g, alpha, beta) for all g are kept as one vector per 
+ * (alpha, beta) and computed together. This class only writes the layers. 
  * <p>
  * The output numbers will be located at output/F0 <br>
  * All terms in the generating series satisfying total degree <= 5 and 
@@ -55,22 +59,25 @@ import java.util.Scanner;
  */
 
 public class F0table {  
-    private static int a;
-    private static int b;         
-    private static int maxNode;
-    private static int maxLength;
-    private static ArrayOp arrOP;
+    private final int a;
+    private final int b;         
+    private final int maxNode;
     /**
      * The number of different first degrees of the curve class which will 
      * be printed out. 
      * The output will will contain number of curves in |O(i,b)| for i = 
      * (a - printLast + 1) to a.
      */
-    public static int printLast;   
-    private static int wDeg;       
-    private static HashMap<ArrayList<Integer>, Long> prevMap;
-    private static HashMap<ArrayList<Integer>, Long> curMap;   
-    private Partitions parArr; 
+    public int printLast;   
+    /**
+     * The directory in which the layers are kept for later runs (see
+     * LayerStore), or null to keep none. null by default.
+     */
+    public File state;
+    private final int wDeg;       
+    private final Partitions parArr; 
+    // the layers O(i, b), i = 0,..., a, sliced by g (see slice)
+    private final Recursion rec;
 
     /**
      * The constructor of the class.
@@ -83,20 +90,16 @@ public class F0table {
         this.a = a;
         this.b = b;
         this.maxNode = maxNode;       
-        maxLength = b;    
-
-        arrOP = new ArrayOp(maxLength);  
         printLast = 5;
         wDeg = 10;
-        parArr = new Partitions(b, maxLength);
-        prevMap = new HashMap<ArrayList<Integer>, Long>();
-        curMap = new HashMap<ArrayList<Integer>, Long>();
+        rec = new Recursion(new Hirzebruch(0, a, b), maxNode);
+        parArr = rec.partitions();
     }
     
     /** 
      * Call this method compute the results and generate output. 
      * User needs to enter a, b, and maxNode. 
-     * @param args Unused
+     * @param args The directory of state, if any.
      */
     public static void main(String[] args)
     {        
@@ -120,143 +123,105 @@ public class F0table {
         reader.close();
                  
         F0table f0Table = new F0table(inputa, inputb, inputmaxNode);
+        if (args.length > 0) {
+            f0Table.state = new File(args[0]);
+        }
         f0Table.compute();        
     }
     
     /** 
      * Run this method to compute and create output file.  
+     * The output of a layer is written by another thread while the next 
+     * layer is computed, and the next write waits for it, so at most two 
+     * printed layers are kept in memory. The layers before the 
+     * printed ones are only computed where the output needs them. 
+     * It may be called again, e.g. after changing printLast or state. 
      */
-    private void compute() {
+    public void compute() {
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        // forget the last run, if any
+        rec.restart();
+        if (state != null) {
+            rec.store(state);
+        }
+        if (printLast <= a) {
+            for (int i = a - printLast + 1; i <= a; i++) {
+                rec.want(i, b);
+            }
+        }
         // Here we put N(O(i, b), all valid alpha and beta) into dictionary
         for (int i = 0; i <= a - printLast; i++) {
             System.out.println("Computing a = " + i);
-            prevMap = curMap;
-            curMap = new HashMap<ArrayList<Integer>, Long>();
-            // Compute N and put in the table           
-            for (int g = MyF.g_a(i, b) - maxNode; g <= MyF.g_a(i, b); g++) {
-                for (int j = b; j >= 0; j--) {
-                    for (int[] alpha : parArr.get(j)) {
-                        for (int[] beta : parArr.get(b - j)) {
-                            curMap.put(Key.make(i, b, g, alpha, beta), 
-                                N(i, b, g, alpha, beta));
-                        }
-                    }
-                }
-            }                   
+            rec.next();
         }       
         // Here we put N(O(i, b), all valid alpha and beta) into dictionary
         // and write output file
         for (int i = Math.max(a - printLast + 1, 0); i <= a; i++) {
             System.out.println("Computing a = " + i);
-            prevMap = curMap;
-            curMap = new HashMap<ArrayList<Integer>, Long>();
-            for (int g = MyF.g_a(i, b) - maxNode; g <= MyF.g_a(i, b); g++) {
-                if (i == a) { 
-                    curMap = new HashMap<ArrayList<Integer>, Long>();
-                }
-                try {
-                    File outputfile = new File("output/F0/O("
-                            + i + ", " + b + ")_g=" + g + ".txt");  
-                    File genFun = new File("output/genFunF0/O("
-                            + i + ", " + b + ")_g=" + g + ".txt");         
-                    outputfile.getParentFile().mkdirs();
-                    genFun.getParentFile().mkdirs();
-                    PrintWriter pw = new PrintWriter(outputfile, "UTF-8"); 
-                    PrintWriter gen = new PrintWriter(genFun, "UTF-8");
-                    for (int j = b; j > 4; j--) {
-                        for (int[] alpha : parArr.get(j)) {
-                            for (int[] beta : parArr.get(b - j)) {
-                                long ansN = N(i, b, g, alpha, beta);
-                                curMap.put(Key.make(i, b, g, alpha, beta), ansN);
-                                pw.printf("N(O(%d, %d), %d, %s, %s) = %d\n", 
-                                    i, b, g, MyF.str(alpha), MyF.str(beta), ansN);
-                            }
-                        }    
-                    }
-                    for (int j = Math.min(4, b); j >= 0; j--) {
-                        for (int[] alpha : parArr.get(j)) {
-                            gen.println("alpha = " + MyF.str(alpha));
-                            for (int[] beta : parArr.get(b - j)) {
-                                long ansN = N(i, b, g, alpha, beta);
-                                curMap.put(Key.make(i, b, g, alpha, beta), ansN);
-                                pw.printf("N(O(%d, %d), %d, %s, %s) = %d\n", 
-                                       i, b, g, MyF.str(alpha), MyF.str(beta), ansN);
-                                if (b - j - beta[0] <= wDeg) {
-                                    gen.printf(ansN + MyF.toVar(beta) + "+");
-                                }      
-                            }
-                            gen.println("\n");
-                        }    
-                    }
-                    pw.close();
-                    gen.close();
-                } 
-                catch (IOException e) {
-                    System.out.println("There is an error in I/O.");
-                }                                     
-            }                
+            LayerTable layer = rec.next();
+            int ii = i;
+            // the previous write is finished first, as in HirTable
+            written.join();
+            written = CompletableFuture.runAsync(() -> write(ii, layer));
         }    
+        written.join();
     }
-    /** 
-     * The recursive formula is implemented here. 
+    /**
+     * Write N(O(i, b), g, alpha, beta) in the layer of O(i, b) into the 
+     * output files. 
      */
-    private long N(int aa, int bb, int g, int[] alpha, int[] beta) {
-        long ans = 0 ;        
-        // invalid parameters
-        if (arrOP.I(alpha) + arrOP.I(beta) != b  || aa < 0 || bb < 0) {
-            return 0;             
+    private void write(int i, LayerTable layer) {
+        for (int g = MyF.g_a(i, b) - maxNode; g <= MyF.g_a(i, b); g++) {
+            try {
+                File outputfile = new File("output/F0/O("
+                        + i + ", " + b + ")_g=" + g + ".txt");  
+                File genFun = new File("output/genFunF0/O("
+                        + i + ", " + b + ")_g=" + g + ".txt");         
+                outputfile.getParentFile().mkdirs();
+                genFun.getParentFile().mkdirs();
+                PrintWriter pw = new PrintWriter(outputfile, "UTF-8"); 
+                PrintWriter gen = new PrintWriter(genFun, "UTF-8");
+                for (int j = b; j > 4; j--) {
+                    for (int ia = 0; ia < parArr.size(j); ia++) {
+                        int[] alpha = parArr.unrank(j, ia);
+                        for (int ib = 0; ib < parArr.size(b - j); ib++) {
+                            int[] beta = parArr.unrank(b - j, ib);
+                            long ansN = layer.get(layer.index(slice(i, b, g), j, ia, ib));
+                            pw.printf("N(O(%d, %d), %d, %s, %s) = %d\n", 
+                                i, b, g, MyF.str(alpha), MyF.str(beta), ansN);
+                        }
+                    }    
+                }
+                for (int j = Math.min(4, b); j >= 0; j--) {
+                    for (int ia = 0; ia < parArr.size(j); ia++) {
+                        int[] alpha = parArr.unrank(j, ia);
+                        gen.println("alpha = " + MyF.str(alpha));
+                        for (int ib = 0; ib < parArr.size(b - j); ib++) {
+                            int[] beta = parArr.unrank(b - j, ib);
+                            long ansN = layer.get(layer.index(slice(i, b, g), j, ia, ib));
+                            pw.printf("N(O(%d, %d), %d, %s, %s) = %d\n", 
+                                   i, b, g, MyF.str(alpha), MyF.str(beta), ansN);
+                            if (b - j - beta[0] <= wDeg) {
+                                gen.printf(ansN + MyF.toVar(beta) + "+");
+                            }      
+                        }
+                        gen.println("\n");
+                    }    
+                }
+                pw.close();
+                gen.close();
+            } 
+            catch (IOException e) {
+                System.out.println("There is an error in I/O.");
+            }                                     
         }
-        // Base case. Only fiber class passing through points. 
-        // from the beginning of Section 8. 
-        else if (aa == 0 && arrOP.I(beta) == 0) { 
-            if (alpha[0] == arrOP.sum(alpha) && g == 1 - bb ) {
-                return 1;    
-            }
-            else {
-                return 0;
-            }
-        }               
-        for (int k = 0; k < maxLength; k++) {    // the first term
-            if (beta[k] > 0) {
-                int[] tempAlpha = alpha.clone();
-                int[] tempBeta = beta.clone();
-                //alpha_+e_k, beta-e_k
-                tempAlpha[k] = alpha[k] + 1;
-                tempBeta[k] = beta[k] - 1;  
-                if (curMap.containsKey(Key.make(aa, bb, g, tempAlpha, tempBeta))) 
-                    ans = ans + (k + 1) * 
-                        curMap.get(Key.make(aa, bb, g, tempAlpha, tempBeta));
-                else 
-                    System.out.format("N(%d, %d, %d, %s, %s) can't be found.\n",
-                          aa, bb, g, MyF.str(tempAlpha), MyF.str(tempBeta));
-            }                
-        }        
-        if (aa > 0) {                              // the second term
-            for (int j = arrOP.sum(beta) - MyF.g_a(aa, bb) + g + b; j <= bb; j++) {
-                for (int[] bP : parArr.get(j)) {
-                    for (int[] aP : parArr.get(bb - j)) {
-                        if (arrOP.greater(alpha, aP) && arrOP.greater(bP, beta)) {
-                            int[] gamma = arrOP.substract(bP, beta);
-                            int gP = g - arrOP.sum(gamma) + 1;
-                            if (gP <= MyF.g_a(aa - 1, bb) && gP >= MyF.g_a(aa - 1, bb) - maxNode) {
-                                if (prevMap.containsKey(Key.make(aa - 1, bb, gP, aP, bP))) {
-                                    long coeff = arrOP.J(gamma) * arrOP.binom(alpha, aP) 
-                                                 * arrOP.binom(bP, beta);
-                                    ans = ans + coeff * prevMap.get(Key.make(aa - 1, bb, gP, aP, bP));
-                                }
-                                else { // Table doesn't contain this term
-                                    System.out.format("Finding N(%d, %d, %d, %s, %s)\n",
-                                        aa, bb, g, MyF.str(alpha), MyF.str(beta));
-                                    System.out.format("N(%d, %d, %d, %s, %s) can't be found.\n", 
-                                        a - 1, bb, gP, MyF.str(aP), MyF.str(bP));
-                                }
-                            }
-                        }    
-                    }
-                }                
-            }
-        }    
-        return ans; 
-    }                        
-}    
-
+    }
+    /**
+     * Return the slice of genus g in the layer of O(aa, bb). 
+     * The genera g_a(aa, bb),..., g_a(aa, bb) - maxNode are the slices 
+     * 0,..., maxNode.
+     */
+    private int slice(int aa, int bb, int g) {
+        return MyF.g_a(aa, bb) - g;
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Scanner;
+
+/**
+ * The HirSweep class runs HirTable for a list of queries (n, a, b, gdiff)
+ * and computes every layer only once.
+ * <p>
+ * The layer i of HirTable(n, a, b, gdiff) is the curve class
+ * ih + (b + n(a - i))f = ih + (W - ni)f with W = b + na, so it only depends
+ * on n, W and i. The genera of a smaller gdiff are the top ones of a larger
+ * gdiff. So the queries with the same n and W are computed together by
+ * one HirTable(n, amax, W - n * amax, gdiffmax), where amax and gdiffmax
+ * are the largest a and gdiff among them, and every layer is written to
+ * the output file of each query which contains it. The files are the same
+ * as those written by HirTable for each query alone.
+ * <p>
+ * The user enters the number of queries, then n, a, b and gdiff of each
+ * query. If a file is asked for twice, the last query is used.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class HirSweep
+{
+    // the queries {n, a, b, gdiff} by output file
+    private LinkedHashMap<String, int[]> queries;
+
+    /**
+     * Constructor for objects of class HirSweep.
+     */
+    public HirSweep() {
+        queries = new LinkedHashMap<String, int[]>();
+    }
+
+    /**
+     * The main method of the class.
+     * The queries are initialzed by user input. Then all of them are
+     * computed and written.
+     * @param args Unused
+     */
+    public static void main(String[] args) {
+        Scanner reader = new Scanner(System.in);  // Reading from System.in
+        System.out.println("This program computes the number of singular " +
+                           "curves on Hirzebrunch surfaces for many (n, a, b, gdiff).");
+        System.out.println("Enter the number of queries:");
+        int count = reader.nextInt();
+        HirSweep sweep = new HirSweep();
+        for (int q = 0; q < count; q++) {
+            System.out.println("Enter n, a, b and gdiff of query " + (q + 1) + ":");
+            int n = reader.nextInt();
+            int a = reader.nextInt();
+            int b = reader.nextInt();
+            int gdiff = reader.nextInt();
+            sweep.add(n, a, b, gdiff);
+        }
+        System.out.format("The output will be written in the directory" +
+                           "../output/Hir\n");
+        reader.close();
+        sweep.compute();
+    }
+
+    /**
+     * Add the query HirTable(n, a, b, gdiff).
+     * @param n The Hirzebruch surface is F_n, n >= 0.
+     * @param a The number of ample class h in the curve class ah + bf.
+     * @param b The number of fiber class h in the curve class ah + bf.
+     * @param gdiff The max difference between arithmetic genus and geometric
+     * genus of the curve we'll compute.
+     */
+    public void add(int n, int a, int b, int gdiff) {
+        String file = "output/Hir/HirTable_n=" + n + "_a=" + a + "_b=" + b + ".txt";
+        queries.remove(file);
+        queries.put(file, new int[] {n, a, b, gdiff});
+    }
+
+    /**
+     * Compute all queries, one HirTable for each (n, b + na).
+     */
+    public void compute() {
+        // the files of the queries by (n, b + na)
+        LinkedHashMap<String, ArrayList<String>> groups =
+            new LinkedHashMap<String, ArrayList<String>>();
+        for (String file : queries.keySet()) {
+            int[] q = queries.get(file);
+            String group = q[0] + " " + (q[2] + q[0] * q[1]);
+            if (!groups.containsKey(group)) {
+                groups.put(group, new ArrayList<String>());
+            }
+            groups.get(group).add(file);
+        }
+        for (ArrayList<String> files : groups.values()) {
+            int size = files.size();
+            int n = queries.get(files.get(0))[0];
+            int w = 0;
+            int amax = 0;
+            int gmax = 0;
+            int[] as = new int[size];
+            int[] gdiffs = new int[size];
+            for (int k = 0; k < size; k++) {
+                int[] q = queries.get(files.get(k));
+                w = q[2] + n * q[1];
+                as[k] = q[1];
+                gdiffs[k] = q[3];
+                amax = Math.max(amax, q[1]);
+                gmax = Math.max(gmax, q[3]);
+            }
+            System.out.format("Computing n = %d, b + na = %d: a <= %d, gdiff = %d"
+                              + " for %d queries\n", n, w, amax, gmax, size);
+            try {
+                PrintWriter[] pws = new PrintWriter[size];
+                for (int k = 0; k < size; k++) {
+                    File outputfile = new File(files.get(k));
+                    outputfile.getParentFile().mkdirs();
+                    pws[k] = new PrintWriter(outputfile, "UTF-8");
+                }
+                new HirTable(n, amax, w - n * amax, gmax).compute(as, gdiffs, pws);
+                for (int k = 0; k < size; k++) {
+                    pws[k].close();
+                }
+            }
+            catch (IOException e) {
+                System.out.println("There is an error in I/O.");
+            }
+        }
+    }
+}
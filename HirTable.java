@@ -1,10 +1,9 @@
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.io.PrintWriter;
 import java.io.File;
 import java.io.IOException;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This HirTable class uses dynamic programming approach to implement the 
@@ -34,37 +33,38 @@ import java.util.Scanner;
  * The output numbers will be located at output/Hir <br>
  * <p>
  * Note on algorithm: <br />
- * alpha and beta are stored by ArrayList of Integers. The length of them 
- * (and all alphaP, betaP etc...) are of fixed length which equals
- * maxlength = b + a * n+ gdiff + 1. This is because max number of fiber 
- * class is in (ah+bf)-aE = bf+a*nf = (b+a*n)f and <br />
- * g' = g - |gamma| + 1, => |gamma| = g - g' +1 = gdiff +1 <br />
- * maxlength = |beta'| = |beta+gamma|<= |beta| + |gamma| <= b+a * n+ gdiff +1. 
+ * alpha and beta are stored by integer arrays. The length of them (and 
+ * all alphaP, betaP etc...) is fixed, length = b + a * n (at least 1). 
+ * This is because the max number of fiber class is in 
+ * (ah+bf)-aE = bf+a*nf = (b+a*n)f, so I(alpha) + I(beta) <= b + a * n 
+ * in every layer, and beta' = beta + gamma of the second term is a 
+ * partition of a layer too. <br />
  * <p>
- * Operations of integer sequences are handled by the binom class, which can 
- * take arrayList of any length, as long as they satisfy required assumptions 
- * (c>=d) for substract(c,d) and binom(c,d).
- * <p>
- * For possble future modification: If alpha and beta (and their variations) 
- * can take different length, ex: (1,2) = (1,2,0,0,..). 
- * Then they have to be trimmed while making key (the key class needs to be 
- * modified). 
+ * The algorithm is the one of F0table: the curve classes 
+ * ih + (b + n(a-i))f are the layers i = 0,..., a of Recursion with the 
+ * Surface Hirzebruch, each kept in a LayerTable with the genera as slices. 
+ * Only two layers are kept in memory, and this class only writes them. 
  *  <p>
  * @author Yu-jong Tzeng
- * @version 2.1
+ * @version 3.0
  * @since August 25, 2019.
  */
 
 public class HirTable {    
-    private int n;  
-    private int a;
-    private int b;         
-    private int gdiff;
-    private int maxlength;    
-    private static ArrayList<Integer> zeros;
-    
-    private static HashMap<ArrayList<Integer>, Long> table;
-    private SeqOp seq;
+    private final int n;  
+    private final int a;
+    private final int b;         
+    private final int gdiff;
+    /**
+     * The directory in which the layers are kept for later runs (see
+     * LayerStore), or null to keep none. null by default.
+     */
+    public File state;
+    // the positions which can be nonzero in any layer, b + a * n
+    private final int length;
+    private final Partitions parArr;
+    // the layers i, sliced by g = g_a(ih + jf) - s
+    private final Recursion rec;
 
     /**
      * The constructor of the class.
@@ -79,22 +79,18 @@ public class HirTable {
         this.a = a;
         this.b = b;
         this.gdiff = gdiff;
-        maxlength = b + a * n + gdiff + 1;     
                 
-        // All binomial coefficients needed will have parameters <= maxlength
-        seq = new SeqOp(maxlength);   
-        table = new HashMap<ArrayList<Integer>, Long>(); //store computed results
-        //create an ArrayList with all zeros of size maxlength
-        zeros = new ArrayList<Integer>();   
-        for (int i = 0; i < maxlength; i++) {
-            zeros.add(0);
-        }
+        // I(alpha) + I(beta) <= b + a * n in all layers, so the positions 
+        // from b + a * n on are always 0. They are only added for output.
+        length = Math.max(1, b + a * n);
+        rec = new Recursion(new Hirzebruch(n, a, b), gdiff);
+        parArr = rec.partitions();
     }
     
     /** The main method of the class.
      *  Paramaters a, b, gdiff is initialzed by user input. Then a class
      * with these parameters is constructed and compute() is called.
-     *  @param args Unused
+     *  @param args The directory of state, if any.
      */
     public static void main(String[] args)
     {        
@@ -121,17 +117,16 @@ public class HirTable {
         reader.close();
                  
         HirTable T = new HirTable(n, a, b, gdiff);
+        if (args.length > 0) {
+            T.state = new File(args[0]);
+        }
         T.compute();        
     }    
     /** 
      * Run this method to compute and create output file.  
      */
-    private void compute() {
-        // just setting the length
-        ArrayList<Integer> alphaPP = new ArrayList<>(zeros);         
-        ArrayList<Integer> betaPP = new ArrayList<>(zeros);        
-                       
-        // put N(ah+bf - (a-i)E, all possible alpha and beta) on F_n into dictionary. 
+    public void compute() {
+        // put N(ah+bf - (a-i)E, all possible alpha and beta) on F_n into the layer i. 
         // Let D = ah+bf - (a-i)E, 
         // D = ah+bf - (a-i)E = ah+bf-(a-i)(h-nf) = ih + (b+n(a-i))f
         // tangency condition satisfy I\alpha + I\beta = D.E = b+n(a-i)
@@ -141,19 +136,7 @@ public class HirTable {
                                 + a+"_b=" + b + ".txt");          
             outputfile.getParentFile().mkdirs();
             PrintWriter pw = new PrintWriter(outputfile, "UTF-8");   
-            for (int i = 0; i<= a; i++) {
-                ArrayList<ArrayList<Integer>> Aj = new ArrayList<ArrayList<Integer>>();
-                ArrayList<ArrayList<Integer>> Bj = new ArrayList<ArrayList<Integer>>();
-                ablist(b+n*(a-i), alphaPP, betaPP, 0, Aj, Bj); //create all tangency conditions
-                for (int g = g_a(n, i, b + n*(a - i)) - gdiff; g <= g_a(n, i, b + n*(a-i)); g++) {
-                    for (int j = 0; j < Aj.size(); j++) {
-                        long N = N(i, b+ n*(a-i), g, Aj.get(j), Bj.get(j));
-                        table.put(Key.make(i, b+ n*(a-i), g ,Aj.get(j), Bj.get(j)), N);
-                        pw.printf("N(%dh+%df, %d, ", i, b+ n * (a - i), g);
-                        pw.println(Aj.get(j) +", "+ Bj.get(j) + ") = "+ N);
-                    }
-                }
-            }
+            compute(new int[] {a}, new int[] {gdiff}, new PrintWriter[] {pw});
             pw.close();
         }
         catch (IOException e) {
@@ -161,141 +144,103 @@ public class HirTable {
         }                    
     }
     
-    /** 
-     * The recursive formula is implemented here. 
+    /**
+     * Compute the layers i = 0,..., a and write them for several queries 
+     * (aq, bq, gdiffq) on the same F_n with bq + n * aq = b + n * a, 
+     * aq <= a and gdiffq <= gdiff. The layer i of such a query is the layer 
+     * i here, and its genera are the top gdiffq + 1 of gdiff + 1, so the 
+     * output of each query is the same as computed alone (see HirSweep). 
+     * The output of a layer is written by another thread while the next 
+     * layer is computed. Every layer is written, so the next write waits 
+     * for the previous one: at most two layers are kept in memory. 
+     * It may be called again, e.g. with other queries. 
+     * @param as The aq of the queries.
+     * @param gdiffs The gdiffq of the queries.
+     * @param pws The output of the queries.
      */
-    private long N(int a, int b, int g, ArrayList<Integer> alpha, ArrayList<Integer> beta) { //skip n for simpleness
-        long ans = 0 ;
-        
-        // invalid parameters
-        if (SeqOp.I(alpha) + SeqOp.I(beta) != b || a < 0 || b < 0 || n < 0) {
-            return 0;             
-        }
-        // Base case. Only fiber class passing through points. 
-        else if (a == 0 && SeqOp.sum(beta) == 0) { 
-            // from the beginning of Section 8. 
-            // These will come before those with beta !=0 in ablist by implementation.  
-            if (alpha.get(0) == SeqOp.sum(alpha) && g == 1 - b) return 1; //alpha = (k,0,0,0,....)
-            else return 0;            
+    public void compute(int[] as, int[] gdiffs, PrintWriter[] pws) {
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        // forget the last run, if any
+        rec.restart();
+        if (state != null) {
+            rec.store(state);
         }
-        
-        // the first term, alpha+ e_k, beta - e_k
-        // this k is position
-        for (int k = 0; k< beta.size(); k++) {    
-            if (beta.get(k) > 0){
-                ArrayList<Integer> tempAlpha = new ArrayList<Integer>(alpha);
-                ArrayList<Integer> tempBeta = new ArrayList<Integer>(beta);
-                tempAlpha.set(k, alpha.get(k) + 1);
-                tempBeta.set(k, beta.get(k) - 1);                
-                ans = ans +(k + 1) * table.get(Key.make(a, b, g, tempAlpha, tempBeta));                   
-            }                
-        }
-        
-        if (a > 0) { // the second term
-            ArrayList<Integer> alphaP = new ArrayList<>(zeros);
-            ArrayList<ArrayList<Integer>> resultAlpha = new ArrayList<ArrayList<Integer>>();
-            // generate all alpha' and put it in resultAlpha
-            generateA(alpha, alphaP, 0, resultAlpha);    
-           
-            for(int i = 0; i < resultAlpha.size() ; i++) {
-                ArrayList<Integer> Ai = new ArrayList<Integer>(resultAlpha.get(i));                
-                ArrayList<Integer> gamma = new ArrayList<>(zeros);
-                ArrayList<ArrayList<Integer>> resultGamma = new ArrayList<ArrayList<Integer>>();
-                // generate all valid gamma for given alpha = Ai, beta 
-                // Satisfy I\alpha + I(beta+gamma) = b+n then put in resultGamma
-                generateG(Ai, beta, gamma, 0, b + n, resultGamma);  
-
-                for (int j = 0; j< resultGamma.size(); j++){
-                    ArrayList<Integer> gammai = new ArrayList<Integer>(resultGamma.get(j));
-                    int gP = g - SeqOp.sum(gammai) + 1;
-                    ArrayList<Integer> bP = SeqOp.add(beta, gammai);                   
-                    
-                    if (gP <= g_a(n, a - 1,b + n) && gP >= g_a(n, a - 1, b + n) - gdiff){  
-                        if(table.containsKey(Key.make(a - 1, b + n, gP, Ai, bP))) {
-                            ans = ans + SeqOp.J(gammai)*seq.binom(alpha, Ai)*seq.binom(bP, beta)
-                                         *table.get(Key.make(a - 1, b + n, gP, Ai, bP));
-                        }
-                        else {   // Table doesn't contain this term
-                            System.out.println("Finding N(" + a + ", "+ b +", " + g + ", "+ alpha + ", " + beta );
-                            System.out.format("N(%d, %d, %d, ", a - 1, b + n, gP);
-                            System.out.println(Ai + ", " + bP +") can't be found."); 
-                        }
-                    }       
-                }        
-            }        
+        for (int i = 0; i<= a; i++) {
+            LayerTable layer = rec.next();
+            int ii = i;
+            written.join();
+            written = CompletableFuture.runAsync(() -> {
+                ArrayList<int[]> pairs = new ArrayList<int[]>();
+                int weight = b + n * (a - ii);
+                ablist(weight, weight, new int[length], 0, pairs);
+                for (int q = 0; q < pws.length; q++) {
+                    if (as[q] >= ii) {
+                        write(pws[q], ii, layer, pairs, gdiffs[q]);
+                    }
+                }
+            });
         }
-        return ans; 
-    }                    
+        written.join();
+    }
     
     /**
-     * This method create all valid tangency condition alpha and beta so that 
-     * I(alpha)+I(beta) = b.
-     * tempA and tempB are the working arraylist (working on index current). 
-     * Once finished working, the result is put in Aj and Bj. 
-     * (Aj.get(j), B_j.get(j)) is a pair of valid (alpha, beta).
+     * Write N(ih + (b + n(a - i))f, g, alpha, beta) for g_a - gd <= g <= g_a 
+     * and all pairs in the layer i, in the order of ablist. 
      */
-    private void ablist(int b, ArrayList<Integer> alphaPP, ArrayList<Integer> betaPP, int current, 
-                        ArrayList<ArrayList<Integer>> Aj,  ArrayList<ArrayList<Integer>> Bj) {   
-        int l = alphaPP.size();
-        if (current == 2 * l) {
-            if (SeqOp.I(alphaPP)+ SeqOp.I(betaPP) == b) {
-                Aj.add(new ArrayList<Integer>(alphaPP));
-                Bj.add(new ArrayList<Integer>(betaPP));
-                return;
-            }         
-        }
-        if (current <= l - 1) {                
-            for(int i = (b - SeqOp.I(alphaPP, current)) / (current + 1); i >= 0; i--) {
-                alphaPP.set(current, i);            
-                ablist(b, alphaPP, betaPP, current + 1, Aj, Bj);
-            }                                    
+    private void write(PrintWriter pw, int i, LayerTable layer, 
+                       ArrayList<int[]> pairs, int gd) {
+        int weight = b + n * (a - i);
+        // the output length of a query with this gdiff
+        int outLength = b + a * n + gd + 1;
+        int gMax = Hirzebruch.g_a(n, i, weight);
+        for (int g = gMax - gd; g <= gMax; g++) {
+            for (int[] p : pairs) {
+                int[] alpha = parArr.unrank(p[0], p[1]);
+                int[] beta = parArr.unrank(weight - p[0], p[2]);
+                pw.printf("N(%dh+%df, %d, ", i, weight, g);
+                pw.println(str(alpha, outLength) + ", " + str(beta, outLength) 
+                    + ") = " + layer.get(layer.index(gMax - g, p[0], p[1], p[2])));
+            }
         }
-        if (current >= l  && current <= 2 * l - 1) {
-            for(int i = (b - SeqOp.I(alphaPP) - SeqOp.I(betaPP, current - l)) / (current - l + 1); i >= 0; i--) {
-                betaPP.set(current - l, i);            
-                ablist(b, alphaPP, betaPP, current + 1, Aj, Bj);
-            } 
-        }        
+        pw.flush();
     }
     
-    // Given alpha, find all alphaP with alphaP <= alpha and put the result in resultAlpha   
-    private void generateA(ArrayList<Integer> alpha, ArrayList<Integer> alphaP,  int current, 
-                          ArrayList<ArrayList<Integer>> resultAlpha) {
-        if (current == alpha.size()) {
-            resultAlpha.add(new ArrayList<Integer>(alphaP));
+    /**
+     * This method lists all valid tangency condition alpha and beta so that 
+     * I(alpha)+I(beta) = b, in the order of the old output: alpha in 
+     * decreasing lexicographic order over all I(alpha) <= b, then beta in 
+     * the order of Partitions. 
+     * alphaPP is the working array (working on index current) and remain 
+     * is b - I(alphaPP). Once remain < current + 1 the other positions 
+     * can only be 0 and are not visited. Each pair is put into pairs as 
+     * (I(alpha), index of alpha, index of beta). 
+     */
+    private void ablist(int b, int remain, int[] alphaPP, int current, 
+                        ArrayList<int[]> pairs) {   
+        if (current == length || remain < current + 1) {
+            int j = b - remain;
+            int ia = parArr.rank(alphaPP);
+            for (int ib = 0; ib < parArr.size(remain); ib++) {
+                pairs.add(new int[] {j, ia, ib});
+            }
             return;
         }
-        for (int i = 0 ; i <= alpha.get(current); i++) {
-            alphaP.set(current, i);            
-            generateA(alpha, alphaP, current + 1, resultAlpha);
+        for (int i = remain / (current + 1); i >= 0; i--) {
+            alphaPP[current] = i;            
+            ablist(b, remain - i * (current + 1), alphaPP, current + 1, pairs);
         }
     }
     
-    private void generateG(ArrayList<Integer> alphaP, ArrayList<Integer> beta, ArrayList<Integer> gamma, int current, 
-    int b, ArrayList<ArrayList<Integer>> resultGamma) {
-        if(current == 0) {                                       //clear gamma to the zero sequence
-            for (int i = 0; i < gamma.size(); i++) {
-                    gamma.set(i, 0);
-            }
-        }
-        
-        if(current == gamma.size()) {
-            if (SeqOp.I(alphaP) + SeqOp.I(beta) + SeqOp.I(gamma) == b) {
-                resultGamma.add(new ArrayList<Integer>(gamma));
-            }   
-            return;
-        }
-       
-        for(int i = (b -  SeqOp.I(alphaP) - SeqOp.I(beta) - SeqOp.I(gamma, current)) / (current + 1); i >= 0; i--) {
-            gamma.set(current, i);
-            generateG(alphaP, beta, gamma, current + 1, b, resultGamma);
-        }
-    }  
     /**
-     * Compute the arithmetic genus of the curve class ah + bf on F_n.
+     * Return p as [p1, p2, ...] with outLength entries, in the format of 
+     * ArrayList.toString. 
      */
-    private static int g_a(int n, int a, int b) {  
-        return (a - 1) * (b - 1)+ a * (a - 1) * n / 2;
+    private String str(int[] p, int outLength) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int c = 0; c < outLength; c++) {
+            if (c > 0) sb.append(", ");
+            sb.append((c < p.length) ? p[c] : 0);
+        }
+        return sb.append("]").toString();
     }
-}    
-
+}
@@ -0,0 +1,53 @@
+/**
+ * The Hirzebruch class is the Surface of Vakil's formula on F_n with
+ * tangency conditions with E = h - nf: the curve classes
+ * ah + bf - (a - i)E = ih + (b + n(a - i))f for the layers i = 0,..., a.
+ * The layer i has weight b + n(a - i). For n = 0 this is P^1*P^1 with
+ * the classes O(i, b), as in F0table.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class Hirzebruch implements Surface
+{
+    private final int n;
+    private final int a;
+    private final int b;
+
+    /**
+     * Constructor for objects of class Hirzebruch.
+     * @param n The Hirzebruch surface is F_n, n >= 0.
+     * @param a The number of ample class h in the curve class ah + bf.
+     * @param b The number of fiber class f in the curve class ah + bf.
+     */
+    public Hirzebruch(int n, int a, int b) {
+        this.n = n;
+        this.a = a;
+        this.b = b;
+    }
+
+    public int layers() {
+        return a + 1;
+    }
+
+    public int weight(int i) {
+        return b + n * (a - i);
+    }
+
+    public int genus(int i) {
+        return g_a(n, i, weight(i));
+    }
+
+    /**
+     * Compute the arithmetic genus of the curve class ah + bf on F_n.
+     * For n = 0 it is MyF.g_a(a, b).
+     * @param n The Hirzebruch surface is F_n.
+     * @param a The number of h.
+     * @param b The number of f.
+     * @return (a - 1)(b - 1) + a(a - 1)n/2
+     */
+    public static int g_a(int n, int a, int b) {
+        return (a - 1) * (b - 1) + a * (a - 1) * n / 2;
+    }
+}
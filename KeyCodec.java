@@ -0,0 +1,133 @@
+/**
+ * The KeyCodec class packs the keys of the dynamic programming tables into
+ * a short fixed-width array of longs, so that a key can be built and hashed
+ * without creating any object. It replaces the ArrayList of Integer made by
+ * the Key class for CH, F0table and the decrease checkers.
+ * <p>
+ * A key consists of a few small integer headers (r, or a, b, g) followed
+ * by two partitions alpha and beta of fixed length. Each header takes 16
+ * bits and may be negative (g can be). Since I(alpha) + I(beta) is at most
+ * maxWeight, the i-th component of alpha or beta is at most
+ * maxWeight / (i + 1), so it only needs the number of bits of that bound.
+ * A field never crosses the boundary of two words.
+ * <p>
+ * For example, the keys of CH with deg = 30 fit in two longs.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class KeyCodec
+{
+    private static final int HEADER_BITS = 16;
+    private static final int HEADER_OFFSET = 1 << (HEADER_BITS - 1);
+
+    private int headers;
+    private int length;
+    private int words;
+    // word[f] and shift[f] locate the f-th field. Fields are the headers,
+    // then alpha, then beta.
+    private int[] word;
+    private int[] shift;
+
+    /**
+     * Constructor for objects of class KeyCodec.
+     * @param headers The number of integers in front of alpha and beta.
+     * @param maxWeight The max of I(alpha) + I(beta).
+     * @param length The length of alpha and beta.
+     */
+    public KeyCodec(int headers, int maxWeight, int length) {
+        this.headers = headers;
+        this.length = length;
+        int fields = headers + 2 * length;
+        word = new int[fields];
+        shift = new int[fields];
+        int w = 0;
+        int used = 0;
+        for (int f = 0; f < fields; f++) {
+            int bits = (f < headers) ? HEADER_BITS : bits(maxWeight /
+                       ((f - headers) % length + 1));
+            if (used + bits > 64) {
+                w++;
+                used = 0;
+            }
+            word[f] = w;
+            shift[f] = used;
+            used += bits;
+        }
+        words = w + 1;
+    }
+
+    /**
+     * Return the number of longs in a key.
+     * @return The width of the keys.
+     */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Return a new work space for keys.
+     * @return An array of longs of length words().
+     */
+    public long[] newKey() {
+        return new long[words];
+    }
+
+    /**
+     * Pack r, alpha and beta into key.
+     * @param key The work space, of length words().
+     * @param r int
+     * @param alpha int[]
+     * @param beta int[]
+     */
+    public void make(long[] key, int r, int[] alpha, int[] beta) {
+        clear(key);
+        put(key, 0, r + HEADER_OFFSET);
+        pack(key, alpha, beta);
+    }
+
+    /**
+     * Pack a, b, g, alpha and beta into key.
+     * @param key The work space, of length words().
+     * @param a int
+     * @param b int
+     * @param g int
+     * @param alpha int[]
+     * @param beta int[]
+     */
+    public void make(long[] key, int a, int b, int g,
+                     int[] alpha, int[] beta) {
+        clear(key);
+        put(key, 0, a + HEADER_OFFSET);
+        put(key, 1, b + HEADER_OFFSET);
+        put(key, 2, g + HEADER_OFFSET);
+        pack(key, alpha, beta);
+    }
+
+    private void pack(long[] key, int[] alpha, int[] beta) {
+        for (int i = 0; i < length; i++) {
+            put(key, headers + i, alpha[i]);
+        }
+        for (int i = 0; i < length; i++) {
+            put(key, headers + length + i, beta[i]);
+        }
+    }
+
+    private void put(long[] key, int f, int value) {
+        key[word[f]] |= ((long) value) << shift[f];
+    }
+
+    private void clear(long[] key) {
+        for (int i = 0; i < words; i++) {
+            key[i] = 0;
+        }
+    }
+
+    /**
+     * The number of bits needed to write 0,..., max.
+     */
+    private static int bits(int max) {
+        return 32 - Integer.numberOfLeadingZeros(max);
+    }
+}
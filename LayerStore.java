@@ -0,0 +1,144 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The LayerStore class keeps the layers of a Recursion in files, so that a
+ * later run can read them instead of computing them again. The layer t is
+ * the file layer[t].bin in the directory of the store. It starts with the
+ * weights and genera of the layers 0,..., t of its surface, since the
+ * layer depends on all of them, then the number of pairs and slices and
+ * the entries in the order of LayerTable.
+ * <p>
+ * A file is only used by a run whose layers 0,..., t have the same weights
+ * and genera, e.g. CH with a larger deg or maxNode, or HirTable with the
+ * same n and b + na. Its slices can be fewer than those of the run; then
+ * only the other slices are computed. A file is written to a temporary
+ * file of its own first and then moved, so an interrupted run leaves no
+ * broken layer and several runs may share the directory.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class LayerStore
+{
+    private static final int VERSION = 1;
+
+    private final File dir;
+    private final Surface surface;
+    private final Partitions parArr;
+
+    /**
+     * Constructor for objects of class LayerStore.
+     * @param dir The directory of the files.
+     * @param surface The layers of the run.
+     * @param parArr The partitions which index the layers.
+     */
+    public LayerStore(File dir, Surface surface, Partitions parArr) {
+        this.dir = dir;
+        this.surface = surface;
+        this.parArr = parArr;
+    }
+
+    /**
+     * Return the number of slices of the layer t in the store.
+     * @param t The layer.
+     * @return The slices, or 0 if the layer can't be used by this run.
+     */
+    public int slices(int t) {
+        File file = file(t);
+        if (!file.exists()) return 0;
+        try (DataInputStream in = open(file)) {
+            return header(in, t);
+        }
+        catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Read the layer t.
+     * @param t The layer.
+     * @return The layer, or null if it can't be used by this run.
+     */
+    public LayerTable load(int t) {
+        try (DataInputStream in = open(file(t))) {
+            int slices = header(in, t);
+            if (slices == 0) return null;
+            LayerTable layer = new LayerTable(parArr, surface.weight(t), slices);
+            for (int e = 0; e < layer.size() * slices; e++) {
+                layer.put(e, in.readLong());
+            }
+            return layer;
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the layer t, which must have no MISSING entries.
+     * @param t The layer.
+     * @param layer The layer t of the run.
+     */
+    public void save(int t, LayerTable layer) {
+        try {
+            dir.mkdirs();
+            // a file of its own, since several runs may share dir
+            File tmp = Files.createTempFile(dir.toPath(), "layer" + t,
+                                            ".tmp").toFile();
+            try (DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(VERSION);
+                out.writeInt(t);
+                for (int l = 0; l <= t; l++) {
+                    out.writeInt(surface.weight(l));
+                    out.writeInt(surface.genus(l));
+                }
+                out.writeInt(layer.size());
+                out.writeInt(layer.slices());
+                for (int e = 0; e < layer.size() * layer.slices(); e++) {
+                    out.writeLong(layer.get(e));
+                }
+            }
+            Files.move(tmp.toPath(), file(t).toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            System.out.println("There is an error in I/O.");
+        }
+    }
+
+    /**
+     * Read the header of the layer t and return its slices, or 0 if the
+     * layers before it are not those of this run.
+     */
+    private int header(DataInputStream in, int t) throws IOException {
+        if (in.readInt() != VERSION || in.readInt() != t) return 0;
+        for (int l = 0; l <= t; l++) {
+            if (in.readInt() != surface.weight(l)
+                || in.readInt() != surface.genus(l)) return 0;
+        }
+        int size = in.readInt();
+        int slices = in.readInt();
+        LayerTable shape = new LayerTable(parArr, surface.weight(t), 0);
+        return (size == shape.size()) ? slices : 0;
+    }
+
+    private File file(int t) {
+        return new File(dir, "layer" + t + ".bin");
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(
+                   new FileInputStream(file)));
+    }
+}
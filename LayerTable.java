@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * The LayerTable class stores one layer of the dynamic programming, i.e.
+ * the numbers N(.., s, alpha, beta) for all valid (alpha, beta) with
+ * I(alpha) + I(beta) = weight and s = 0,..., slices - 1, in a flat array
+ * of longs. For CH a layer is a degree d and s = r. For F0table a layer is
+ * a curve class O(i, b) and s = g_a(i, b) - g, see Recursion.
+ * <p>
+ * The entry of (s, alpha, beta) is at pair * slices + s, where
+ * pair = offset[I(alpha)] + rank(alpha) * P(I(beta)) + rank(beta),
+ * P(k) is the number of partitions of k and rank is given by Partitions.
+ * So the entries of (alpha, beta) for all s are a vector in consecutive
+ * places. There is no hashing, and the memory of a layer is
+ * slices * (P(0) P(w) + P(1) P(w - 1) + ... + P(w) P(0)) longs, which is
+ * slices * numN[w] in the Complexity class.
+ * <p>
+ * Entries which were never put are MISSING.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class LayerTable
+{
+    /**
+     * The value of an entry which has not been put.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private Partitions parArr;
+    private int weight;
+    private int slices;
+    // the number of entries in one slice
+    private int size;
+    // offset[j] is the start of the block with I(alpha) = j in a slice
+    private int[] offset;
+    private long[] values;
+
+    /**
+     * Constructor for objects of class LayerTable.
+     * @param parArr The partitions of all integers <= weight.
+     * @param weight I(alpha) + I(beta) of every entry.
+     * @param slices The number of slices (values of r or g).
+     */
+    public LayerTable(Partitions parArr, int weight, int slices) {
+        this.parArr = parArr;
+        this.weight = weight;
+        this.slices = slices;
+        offset = new int[weight + 2];
+        for (int j = 0; j <= weight; j++) {
+            offset[j + 1] = offset[j] + parArr.size(j) * parArr.size(weight - j);
+        }
+        size = offset[weight + 1];
+        values = new long[slices * size];
+        Arrays.fill(values, MISSING);
+    }
+
+    /**
+     * Return the index of (s, alpha, beta) in the table.
+     * @param s The slice.
+     * @param alpha int[]
+     * @param beta int[]
+     * @return The index of the entry.
+     */
+    public int index(int s, int[] alpha, int[] beta) {
+        return index(s, parArr.weight(alpha), parArr.rank(alpha), 
+                     parArr.rank(beta));
+    }
+
+    /**
+     * Return the index of (s, alpha, beta) in the table, where alpha is 
+     * the partition of j with index ia and beta is the partition of 
+     * weight - j with index ib. 
+     * @param s The slice.
+     * @param j I(alpha)
+     * @param ia The index of alpha in Partitions.get(j).
+     * @param ib The index of beta in Partitions.get(weight - j).
+     * @return The index of the entry.
+     */
+    public int index(int s, int j, int ia, int ib) {
+        return pair(j, ia, ib) * slices + s;
+    }
+
+    /**
+     * Return the position of (alpha, beta) among all pairs, where alpha is 
+     * the partition of j with index ia and beta is the partition of 
+     * weight - j with index ib. 
+     * @param j I(alpha)
+     * @param ia The index of alpha in Partitions.get(j).
+     * @param ib The index of beta in Partitions.get(weight - j).
+     * @return An integer between 0 and size() - 1.
+     */
+    public int pair(int j, int ia, int ib) {
+        return offset[j] + ia * parArr.size(weight - j) + ib;
+    }
+
+    /**
+     * Return the number of pairs (alpha, beta), i.e. the number of 
+     * entries in one slice.
+     * @return numN[weight]
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of slices.
+     * @return int
+     */
+    public int slices() {
+        return slices;
+    }
+
+    /**
+     * Return the value of (s, alpha, beta).
+     * @param s The slice.
+     * @param alpha int[]
+     * @param beta int[]
+     * @return The value, or MISSING if it has not been put.
+     */
+    public long get(int s, int[] alpha, int[] beta) {
+        return values[index(s, alpha, beta)];
+    }
+
+    /**
+     * Put the value of (s, alpha, beta) into the table.
+     * @param s The slice.
+     * @param alpha int[]
+     * @param beta int[]
+     * @param value long
+     */
+    public void put(int s, int[] alpha, int[] beta, long value) {
+        values[index(s, alpha, beta)] = value;
+    }
+
+    /**
+     * Set all entries to the given value.
+     * @param value long
+     */
+    public void fill(long value) {
+        Arrays.fill(values, value);
+    }
+
+    /**
+     * Return the value at the given index.
+     * @param index An index returned by index(s, alpha, beta).
+     * @return The value, or MISSING if it has not been put.
+     */
+    public long get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Put the value at the given index.
+     * @param index An index returned by index(s, alpha, beta).
+     * @param value long
+     */
+    public void put(int index, long value) {
+        values[index] = value;
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * The LongMap class is a hash table from keys packed by KeyCodec to long
+ * values. It uses open addressing with linear probing, and all keys and
+ * values are kept in primitive arrays, so neither put nor a lookup creates
+ * any object.
+ * <p>
+ * Every key has the same number of longs (the width). The caller owns the
+ * key array and may reuse it after each call. A lookup is done by indexOf,
+ * which returns the slot of the key or -1, and valueAt, so that the
+ * pattern "containsKey then get" of HashMap only probes once.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class LongMap
+{
+    private int width;
+    private int capacity;
+    private int size;
+    // keys[width * s,..., width * s + width - 1] is the key in slot s
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+
+    /**
+     * Constructor for objects of class LongMap.
+     * @param width The number of longs in each key.
+     */
+    public LongMap(int width) {
+        this(width, 16);
+    }
+
+    /**
+     * Constructor for objects of class LongMap.
+     * @param width The number of longs in each key.
+     * @param expected The expected number of entries.
+     */
+    public LongMap(int width, int expected) {
+        this.width = width;
+        capacity = 16;
+        while (capacity < 2 * expected) {
+            capacity *= 2;
+        }
+        keys = new long[capacity * width];
+        values = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    /**
+     * Return the number of entries.
+     * @return The number of keys in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the slot of a key.
+     * @param key long[] of length width
+     * @return The slot of key, or -1 if the table doesn't contain key.
+     */
+    public int indexOf(long[] key) {
+        int s = hash(key, 0) & (capacity - 1);
+        while (used[s]) {
+            if (equal(s, key, 0)) return s;
+            s = (s + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Return the value in the given slot.
+     * @param slot A slot returned by indexOf.
+     * @return The value stored in this slot.
+     */
+    public long valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Return true if the table contains the key.
+     * @param key long[] of length width
+     * @return True if key is in the table.
+     */
+    public boolean containsKey(long[] key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Return the value of a key.
+     * @param key long[] of length width
+     * @return The value of key, or 0 if the table doesn't contain key.
+     */
+    public long get(long[] key) {
+        int s = indexOf(key);
+        return (s >= 0) ? values[s] : 0;
+    }
+
+    /**
+     * Put the key and value into the table. The key array is copied, so
+     * it can be reused by the caller.
+     * @param key long[] of length width
+     * @param value long
+     */
+    public void put(long[] key, long value) {
+        if (2 * (size + 1) > capacity) {
+            resize();
+        }
+        int s = hash(key, 0) & (capacity - 1);
+        while (used[s]) {
+            if (equal(s, key, 0)) {
+                values[s] = value;
+                return;
+            }
+            s = (s + 1) & (capacity - 1);
+        }
+        System.arraycopy(key, 0, keys, s * width, width);
+        values[s] = value;
+        used[s] = true;
+        size++;
+    }
+
+    /**
+     * Double the capacity and put all entries into the new arrays.
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        int oldCapacity = capacity;
+        capacity *= 2;
+        keys = new long[capacity * width];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        for (int t = 0; t < oldCapacity; t++) {
+            if (oldUsed[t]) {
+                int s = hash(oldKeys, t * width) & (capacity - 1);
+                while (used[s]) {
+                    s = (s + 1) & (capacity - 1);
+                }
+                System.arraycopy(oldKeys, t * width, keys, s * width, width);
+                values[s] = oldValues[t];
+                used[s] = true;
+            }
+        }
+    }
+
+    /**
+     * Return true if the key in slot s equals key[from,..., from+width-1].
+     */
+    private boolean equal(int s, long[] key, int from) {
+        int base = s * width;
+        for (int i = 0; i < width; i++) {
+            if (keys[base + i] != key[from + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hash of key[from,..., from+width-1].
+     */
+    private int hash(long[] key, int from) {
+        return hash(key, from, width);
+    }
+
+    /**
+     * Hash of key[from,..., from+width-1], also used by ConcurrentLongMap.
+     * The words are combined and then mixed by the finalizer of MurmurHash3,
+     * so every bit of the key reaches the low bits taken as the slot.
+     */
+    static int hash(long[] key, int from, int width) {
+        long h = 0;
+        for (int i = 0; i < width; i++) {
+            h = (h + key[from + i]) * 0x9E3779B97F4A7C15L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -5,6 +5,14 @@ import java.util.Arrays;
  * maxLength of positive integers less or equal to n. Partitions are written
  * in the way in Caporaso-Harris' paper. i.e. if n = a1*1 + a2*2 + .... is a 
  * partition of n, then this partitions is recoreded as (a1, a2, ....). 
+ * <p>
+ * The partitions of k are listed in a fixed order in get(k). The method 
+ * rank gives the index of a partition in this list without searching, 
+ * so tables over partitions can be stored as flat arrays (see LayerTable). 
+ * <p>
+ * Every partition also has a signature, min(p_c, 7) in 4 bits for each of 
+ * the first 16 positions c, so that leq rejects most pairs which are not 
+ * componentwise less or equal with one operation on longs. 
  * 
  * @author Yu-jong Tzeng
  * @since August 27, 2019
@@ -15,6 +23,24 @@ public class Partitions
     // parArray[i] is the ArrayList consisting of all partitions of i
     private ArrayList<int[]>[] parArray;   
     private int maxL;
+    // count[c][w] is the number of (a_c, a_{c+1},...) with weighted sum w, 
+    // i.e. the number of partitions of w into parts of size >= c + 1.
+    private int[][] count;
+    // plus[k][i * maxL + c] is the index of p + e_c in get(k + c + 1) and 
+    // minus[k][i * maxL + c] is the index of p - e_c in get(k - c - 1), 
+    // where p = get(k).get(i). They are -1 if there is no such partition.
+    private int[][] plus;
+    private int[][] minus;
+    // sum[k][i] = |p| and J[k][i] = 1^(p1) 2^(p2) ... for p = get(k).get(i)
+    private int[][] sum;
+    private long[][] J;
+    // sig[k][i] has min(p[c], 7) in the bits 4c,..., 4c + 2 for c < 16, and
+    // exact[k][i] is true if sig[k][i] determines p. 
+    private long[][] sig;
+    private boolean[][] exact;
+    // len[k][i] is the number of positions of p up to the last nonzero one
+    private int[][] len;
+    private static final long HIGH = 0x8888888888888888L;
     /**
      * Constructor for objects of class Partitions
      * 
@@ -31,6 +57,68 @@ public class Partitions
             parArray[k] = new ArrayList<int[]>();
             initialize(k , new int[maxLength], 0, parArray[k]);       
         }
+        count = new int[maxLength + 1][n + 1];
+        count[maxLength][0] = 1;
+        for (int c = maxLength - 1; c >= 0; c--) {
+            for (int w = 0; w <= n; w++) {
+                for (int v = 0; v * (c + 1) <= w; v++) {
+                    count[c][w] += count[c + 1][w - v * (c + 1)];
+                }
+            }
+        }
+        sum = new int[n + 1][];
+        J = new long[n + 1][];
+        sig = new long[n + 1][];
+        exact = new boolean[n + 1][];
+        len = new int[n + 1][];
+        for (int k = 0; k <= n; k++) {
+            sum[k] = new int[parArray[k].size()];
+            J[k] = new long[parArray[k].size()];
+            sig[k] = new long[parArray[k].size()];
+            exact[k] = new boolean[parArray[k].size()];
+            len[k] = new int[parArray[k].size()];
+            for (int i = 0; i < parArray[k].size(); i++) {
+                int[] p = parArray[k].get(i);
+                J[k][i] = 1;
+                exact[k][i] = true;
+                for (int c = 0; c < maxL; c++) {
+                    sum[k][i] += p[c];
+                    for (int e = 0; e < p[c]; e++) {
+                        J[k][i] *= c + 1;
+                    }
+                    if (c < 16) {
+                        sig[k][i] |= (long) Math.min(p[c], 7) << (4 * c);
+                    }
+                    if (p[c] >= 7) exact[k][i] = false;
+                    if (p[c] > 0) len[k][i] = c + 1;
+                }
+                // p is 0 from position 16 on
+                if (len[k][i] > 16) exact[k][i] = false;
+            }
+        }
+        plus = new int[n + 1][];
+        minus = new int[n + 1][];
+        for (int k = 0; k <= n; k++) {
+            plus[k] = new int[parArray[k].size() * maxL];
+            minus[k] = new int[parArray[k].size() * maxL];
+            for (int i = 0; i < parArray[k].size(); i++) {
+                int[] p = parArray[k].get(i);
+                for (int c = 0; c < maxL; c++) {
+                    plus[k][i * maxL + c] = -1;
+                    minus[k][i * maxL + c] = -1;
+                    if (k + c + 1 <= n) {
+                        p[c]++;
+                        plus[k][i * maxL + c] = rank(p);
+                        p[c]--;
+                    }
+                    if (p[c] > 0) {
+                        p[c]--;
+                        minus[k][i * maxL + c] = rank(p);
+                        p[c]++;
+                    }
+                }
+            }
+        }
     }
     /**
      * Return the all partitions of the input number. 
@@ -42,6 +130,159 @@ public class Partitions
         if (k >= 0) { return parArray[k]; }
         else { return new ArrayList<int[]>(); }
     }
+    /**
+     * Return the largest integer whose partitions are generated. 
+     * @return n
+     */
+    public int max()
+    {
+        return parArray.length - 1;
+    }
+    /**
+     * Return the length of the partitions. 
+     * @return maxLength
+     */
+    public int length()
+    {
+        return maxL;
+    }
+    /**
+     * Return the number of partitions of the input number. 
+     * @param k Any integer
+     * @return The size of get(k). 
+     */
+    public int size(int k)
+    {
+        return (k >= 0) ? parArray[k].size() : 0;
+    }
+    /**
+     * Return the index of the partition p in get(I(p)). 
+     * The partitions are generated with a1 decreasing first, then a2 
+     * decreasing and so on. So the partitions listed before p are those 
+     * which agree with p before position c and are bigger at position c, 
+     * for some c. They are counted by the table count. 
+     * @param p A partition of length maxLength.
+     * @return The index i such that get(I(p)).get(i) equals p. 
+     */
+    public int rank(int[] p)
+    {
+        int remain = I(p, maxL);
+        int ans = 0;
+        for (int c = 0; c < maxL && remain > 0; c++) {
+            for (int v = remain / (c + 1); v > p[c]; v--) {
+                ans += count[c + 1][remain - v * (c + 1)];
+            }
+            remain = remain - p[c] * (c + 1);
+        }
+        return ans;
+    }
+    /**
+     * Return the partition of k with the given index. This is the inverse
+     * of rank. The returned array is shared and must not be modified. 
+     * @param k Any nonnegative integer
+     * @param index An integer between 0 and size(k) - 1
+     * @return get(k).get(index)
+     */
+    public int[] unrank(int k, int index)
+    {
+        return parArray[k].get(index);
+    }
+    /**
+     * Return the index of p + e_c in get(k + c + 1), where p is the 
+     * partition of k with the given index. e_c is one more part of size 
+     * c + 1. 
+     * @param k Any nonnegative integer
+     * @param index The index of p in get(k)
+     * @param c The position to add 1
+     * @return The index of p + e_c, or -1 if k + c + 1 > n.
+     */
+    public int plus(int k, int index, int c)
+    {
+        return plus[k][index * maxL + c];
+    }
+    /**
+     * Return the index of p - e_c in get(k - c - 1), where p is the 
+     * partition of k with the given index. 
+     * @param k Any nonnegative integer
+     * @param index The index of p in get(k)
+     * @param c The position to substract 1
+     * @return The index of p - e_c, or -1 if p has no part of size c + 1.
+     */
+    public int minus(int k, int index, int c)
+    {
+        return minus[k][index * maxL + c];
+    }
+    /**
+     * Return the effective length of p, i.e. 1 + the last position c with 
+     * p[c] > 0 (0 if p = 0), where p is the partition of k with the given 
+     * index. It is at most k. 
+     * @param k Any nonnegative integer
+     * @param index The index of p in get(k)
+     * @return The number of positions which have to be read.
+     */
+    public int length(int k, int index)
+    {
+        return len[k][index];
+    }
+    /**
+     * Return |p| = p1 + p2 + ..., where p is the partition of k with the 
+     * given index. 
+     * @param k Any nonnegative integer
+     * @param index The index of p in get(k)
+     * @return The number of parts of p.
+     */
+    public int sum(int k, int index)
+    {
+        return sum[k][index];
+    }
+    /**
+     * Return J(p) = 1^(p1) 2^(p2) 3^(p3) ..., where p is the partition of 
+     * k with the given index. 
+     * @param k Any nonnegative integer
+     * @param index The index of p in get(k)
+     * @return The product of all parts of p.
+     */
+    public long J(int k, int index)
+    {
+        return J[k][index];
+    }
+    /**
+     * Return true if q <= p componentwise, where q is the partition of kq 
+     * with index iq and p is the partition of kp with index ip. 
+     * In every 4 bits, (8 + p_c) - q_c keeps its highest bit if and only if 
+     * p_c >= q_c and never borrows from the next 4 bits, so one 
+     * substraction compares the first 16 positions. If p has less than 7 
+     * parts in each position and none from position 16 on, this is exact 
+     * up to the positions of q from 16 on, which must be 0. Otherwise the 
+     * pairs which pass are compared one position at a time. 
+     * @param kq I(q)
+     * @param iq The index of q in get(kq)
+     * @param kp I(p)
+     * @param ip The index of p in get(kp)
+     * @return True if q[c] <= p[c] for all c.
+     */
+    public boolean leq(int kq, int iq, int kp, int ip)
+    {
+        if ((((sig[kp][ip] | HIGH) - sig[kq][iq]) & HIGH) != HIGH) {
+            return false;
+        }
+        if (exact[kp][ip]) return len[kq][iq] <= 16;
+        int[] q = parArray[kq].get(iq);
+        int[] p = parArray[kp].get(ip);
+        for (int c = 0; c < len[kq][iq]; c++) {
+            if (q[c] > p[c]) return false;
+        }
+        return true;
+    }
+    /**
+     * Return the weighted sum I(p) = 1 * p1 + 2 * p2 + .... 
+     * @param p A partition of length maxLength.
+     * @return I(p)
+     */
+    public int weight(int[] p)
+    {
+        return I(p, maxL);
+    }
     /**
      * Generate all partitions of k. 
      * @param temp The work space. 
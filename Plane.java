@@ -0,0 +1,34 @@
+/**
+ * The Plane class is the Surface of the Caporaso-Harris formula: the
+ * curves of degree d = 1,..., deg on P^2 with tangency conditions with a
+ * line. The layer t is the degree d = t + 1, which has weight d and
+ * arithmetic genus (d - 1)(d - 2)/2.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class Plane implements Surface
+{
+    private final int deg;
+
+    /**
+     * Constructor for objects of class Plane.
+     * @param deg The maximal degree of the curve.
+     */
+    public Plane(int deg) {
+        this.deg = deg;
+    }
+
+    public int layers() {
+        return deg;
+    }
+
+    public int weight(int t) {
+        return t + 1;
+    }
+
+    public int genus(int t) {
+        return t * (t - 1) / 2;
+    }
+}
@@ -0,0 +1,243 @@
+import java.util.Scanner;
+
+/**
+ * The Query class computes single numbers N(t, s, alpha, beta) of a
+ * Surface top-down: N calls the recursive formula on the numbers it
+ * needs only, instead of computing whole layers as Recursion does. The
+ * layers and slices are those of Recursion, i.e. the curve class of the
+ * layer t and the genus g = genus(t) - s. For CH the layer of degree d
+ * is t = d - 1 and s = r.
+ * <p>
+ * The numbers reached are kept in a LongMap keyed by
+ * (t, I(alpha), s, index of alpha, index of beta). At most maxSize
+ * numbers are kept, in two generations of maxSize / 2: when the new one
+ * is full, the old one is dropped and the new one becomes old. A number
+ * found in the old generation is put into the new one again, so the
+ * numbers in use by the recursion are not lost and computed again. The
+ * second term only reads s' <= s (see Transition), so a query never
+ * needs more nodes than it asks for.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class Query
+{
+    private final Surface surface;
+    private final ArrayOp arrOP;
+    private final Partitions parArr;
+    private final Dominance dom;
+    private final Coefficients coef;
+    private final int maxSize;
+    // the numbers kept since the last eviction and those kept before
+    private LongMap memo;
+    private LongMap old;
+    private final long[] key;
+
+    /**
+     * Constructor for objects of class Query, with the cacheSize
+     * Recursion.CACHE_SIZE.
+     * @param surface The layers of the numbers asked for.
+     * @param maxSize The max number of numbers kept.
+     */
+    public Query(Surface surface, int maxSize) {
+        this(surface, maxSize, Recursion.CACHE_SIZE);
+    }
+
+    /**
+     * Constructor for objects of class Query.
+     * @param surface The layers of the numbers asked for.
+     * @param maxSize The max number of numbers kept.
+     * @param cacheSize The max number of coefficients kept by Coefficients
+     * and of indices kept by Dominance, see Recursion.
+     */
+    public Query(Surface surface, int maxSize, long cacheSize) {
+        this.surface = surface;
+        this.maxSize = maxSize;
+        int maxWeight = 0;
+        for (int t = 0; t < surface.layers(); t++) {
+            maxWeight = Math.max(maxWeight, surface.weight(t));
+        }
+        int length = Math.max(1, maxWeight);
+        arrOP = new ArrayOp(length);
+        parArr = new Partitions(maxWeight, length);
+        dom = new Dominance(parArr, cacheSize);
+        coef = new Coefficients(parArr, dom, arrOP, cacheSize);
+        memo = new LongMap(2);
+        old = new LongMap(2);
+        key = new long[2];
+    }
+
+    /**
+     * The main method of the class.
+     * It asks for d, r, alpha and beta and prints N(O(d), r, alpha, beta)
+     * on the projective plane, as written by CH.
+     * @param args Unused
+     */
+    public static void main(String[] args) {
+        Scanner reader = new Scanner(System.in);  // Reading from System.in
+        System.out.println("This program computes the number of singular " +
+                           "curves on the projective plane.");
+        System.out.println("Enter the degree of the curve:");
+        System.out.println("degree = ");
+        int d = reader.nextInt();
+        System.out.println("Enter the number of nodes:");
+        System.out.println("r = ");
+        int r = reader.nextInt();
+        int[] alpha = new int[Math.max(1, d)];
+        int[] beta = new int[Math.max(1, d)];
+        System.out.println("Enter alpha_1,..., alpha_" + d + ":");
+        for (int c = 0; c < d; c++) {
+            alpha[c] = reader.nextInt();
+        }
+        System.out.println("Enter beta_1,..., beta_" + d + ":");
+        for (int c = 0; c < d; c++) {
+            beta[c] = reader.nextInt();
+        }
+        reader.close();
+        Query query = new Query(new Plane(d), defaultSize());
+        System.out.format("N(O(%d), %d, %s, %s) = %d\n", d, r, MyF.str(alpha),
+                          MyF.str(beta), query.N(d - 1, r, alpha, beta));
+    }
+
+    /**
+     * Return N(t, s, alpha, beta), the number of curves in the class of the
+     * layer t with genus genus(t) - s and tangency conditions (alpha, beta).
+     * @param t The layer.
+     * @param s The number of nodes, g_a - g.
+     * @param alpha int[] of any length
+     * @param beta int[] of any length
+     * @return The number, or 0 if I(alpha) + I(beta) is not weight(t).
+     */
+    public long N(int t, int s, int[] alpha, int[] beta) {
+        if (t < 0 || t >= surface.layers() || s < 0) return 0;
+        int[] a = fit(alpha);
+        int[] b = fit(beta);
+        if (a == null || b == null) return 0;
+        int j = parArr.weight(a);
+        if (j + parArr.weight(b) != surface.weight(t)) return 0;
+        return N(t, s, j, parArr.rank(a), parArr.rank(b));
+    }
+
+    /**
+     * Return the number of numbers kept now.
+     * @return int
+     */
+    public int size() {
+        return memo.size() + old.size();
+    }
+
+    /**
+     * Return the cache of the coefficients, e.g. to read its counters.
+     * @return Coefficients
+     */
+    public Coefficients coefficients() {
+        return coef;
+    }
+
+    /**
+     * Return a maxSize for which the numbers kept take at most a quarter of
+     * the max heap. An entry of the LongMap takes 25 bytes in a slot and at
+     * most 4 slots.
+     * @return int
+     */
+    public static int defaultSize() {
+        return (int) Math.min(Integer.MAX_VALUE,
+                              Runtime.getRuntime().maxMemory() / 4 / 100);
+    }
+
+    /**
+     * The recursive formula is implemented here, as in Recursion.
+     * alpha is the partition of j with index ia and beta is the partition
+     * of weight(t) - j with index ib.
+     */
+    private long N(int t, int s, int j, int ia, int ib) {
+        int weight = surface.weight(t);
+        int iBeta = weight - j;
+        // Base case. Only lines through the assigned points, so g = g_a
+        // and alpha = (k, 0, 0,...), i.e. I(alpha) = |alpha|.
+        if (t == 0 && iBeta == 0) {
+            return (s == 0 && parArr.sum(j, ia) == j) ? 1 : 0;
+        }
+        make(t, s, j, ia, ib);
+        int slot = memo.indexOf(key);
+        if (slot >= 0) return memo.valueAt(slot);
+        slot = old.indexOf(key);
+        if (slot >= 0) {
+            long ans = old.valueAt(slot);
+            keep(ans);
+            return ans;
+        }
+
+        long ans = 0;
+        int[] beta = parArr.unrank(iBeta, ib);
+        // beta has no parts of size > iBeta
+        for (int k = 0; k < iBeta; k++) {    // the first term
+            if (beta[k] > 0) {
+                //alpha_+e_k, beta-e_k
+                ans = ans + (k + 1) * N(t, s, j + k + 1, parArr.plus(j, ia, k),
+                                        parArr.minus(iBeta, ib, k));
+            }
+        }
+        if (t > 0) {                          // the second term
+            int prevWeight = surface.weight(t - 1);
+            // g' = g - |gamma| + 1
+            int shift = surface.genus(t - 1) - surface.genus(t) - 1;
+            // only over bP = beta + gamma >= beta and aP <= alpha
+            for (int jP = iBeta; jP <= prevWeight; jP++) {
+                int[] above = dom.above(iBeta, ib, jP);
+                int[] below = dom.below(j, ia, prevWeight - jP);
+                if (above.length == 0 || below.length == 0) continue;
+                long[] bCoeff = coef.above(iBeta, ib, jP);
+                long[] aCoeff = coef.below(j, ia, prevWeight - jP);
+                for (int u = 0; u < above.length; u++) {
+                    // gamma is the partition of jP - iBeta with index u
+                    int sP = s + parArr.sum(jP - iBeta, u) + shift;
+                    if (sP < 0) continue;
+                    for (int v = 0; v < below.length; v++) {
+                        ans = ans + bCoeff[u] * aCoeff[v]
+                                    * N(t - 1, sP, prevWeight - jP, below[v],
+                                        above[u]);
+                    }
+                }
+            }
+        }
+        make(t, s, j, ia, ib);
+        keep(ans);
+        return ans;
+    }
+
+    /**
+     * Put ans into the new generation under key, which is packed.
+     */
+    private void keep(long ans) {
+        // the callers hold the lists they read
+        dom.trim();
+        if (memo.size() >= Math.max(1, maxSize / 2)) {
+            old = memo;
+            memo = new LongMap(2);
+        }
+        memo.put(key, ans);
+    }
+
+    /**
+     * Pack (t, s, j, ia, ib) into key.
+     */
+    private void make(int t, int s, int j, int ia, int ib) {
+        key[0] = ((long) t << 48) | ((long) j << 32) | s;
+        key[1] = ((long) ia << 32) | ib;
+    }
+
+    /**
+     * Return p as a partition of the length of parArr, or null if p has
+     * parts too large for the surface or negative entries.
+     */
+    private int[] fit(int[] p) {
+        int[] ans = new int[parArr.length()];
+        for (int c = 0; c < p.length; c++) {
+            if (p[c] < 0 || (p[c] > 0 && c >= ans.length)) return null;
+            if (c < ans.length) ans[c] = p[c];
+        }
+        return ans;
+    }
+}
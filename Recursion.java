@@ -0,0 +1,544 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The Recursion class computes the layers of the recursive formulae of
+ * Caporaso-Harris and Vakil for a Surface, one layer after another. It is
+ * the dynamic programming of CH, F0table, HirTable and the decrease
+ * checks, which only write or check the layers.
+ * <p>
+ * A layer is a LayerTable of the numbers N(t, g, alpha, beta) for all
+ * valid (alpha, beta) and the genera g = genus(t) - s, s = 0,..., maxNode,
+ * so the slice s is the number of nodes (r for CH) and the slice 0 is the
+ * arithmetic genus. The recursion only shifts s, so the numbers of
+ * (alpha, beta) for all s are one vector. <br>
+ * The second term of the layer t only depends on the layer t - 1: since
+ * g' = g - |gamma| + 1, the slice s' = s + |gamma| + genus(t - 1) -
+ * genus(t) - 1. So it is put into the layer at once by a sparse matrix
+ * product (see Transition). The matrix does not depend on any N, so the
+ * matrix of the next layer is built by another task while a layer is
+ * computed, or reused if the weights are the same. A matrix larger than a
+ * quarter of the heap is not stored but computed row by row in apply. The
+ * next matrix is only built while a matrix is applied if both together
+ * take at most a quarter of the heap, otherwise after it. <br>
+ * The first term of (alpha, beta) only reads the same slice of
+ * (alpha + e_k, beta - e_k), which has a bigger I(alpha). So the pairs
+ * with the same I(alpha) form a wavefront, and the pairs of a wavefront
+ * and ranges of slices are computed in parallel. The tasks write disjoint
+ * entries and the sums are exact, so the result does not depend on the
+ * schedule.
+ * <p>
+ * The lists of alpha' and beta + gamma (Dominance) and the coefficients
+ * (Coefficients) are dropped once the weights of the remaining layers are
+ * too small to use them, or if more than cacheSize of them are kept. The
+ * lists are only dropped between layers, when no matrix is being built.
+ * <p>
+ * If only some numbers are wanted (see want), the dependencies are first 
+ * followed backwards from them, layer by layer: the first term of 
+ * (alpha, beta) needs (alpha + e_k, beta - e_k) and the second term needs 
+ * (alpha', beta + gamma) of the layer before, but only for |gamma| large 
+ * enough that s' = s + |gamma| + genus(t - 1) - genus(t) - 1 >= 0 for 
+ * some wanted s. Since s' <= s, the layer t needs no more slices than the 
+ * largest s wanted in the layers t, t + 1,.... Only the pairs and slices 
+ * needed are computed, the others are MISSING. 
+ * <p>
+ * The layers can be kept in a LayerStore (see store). A layer saved by an 
+ * earlier run with the same layers before it is read instead of computed, 
+ * so a run with a larger deg, a or b + na starts after the layers saved. 
+ * If the saved layer has fewer slices, i.e. the earlier run had a smaller 
+ * maxNode, only the new slices are computed: the first term does not mix 
+ * slices and the second term reads s' <= s, which are already known. 
+ * If only some numbers are wanted, the layers before a layer read with 
+ * all its slices are only computed for the numbers wanted in them. 
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class Recursion
+{
+    /**
+     * The default cacheSize: 2^22 coefficients and indices, i.e. 32 MB and
+     * 16 MB.
+     */
+    public static final long CACHE_SIZE = 1 << 22;
+
+    private final Surface surface;
+    private final int maxNode;
+    // slices[t] is the number of slices of the layer t
+    private final int[] slices;
+    // the pairs of each layer which are wanted or needed, null for all
+    private final BitSet[] wanted;
+    private BitSet[] needed;
+    // maxWeight[t] is the largest weight of the layers t, t + 1,...
+    private final int[] maxWeight;
+    private final ArrayOp arrOP;
+    private final Partitions parArr;
+    private final Dominance dom;
+    private final Coefficients coef;
+    // the max number of entries of a stored matrix, a quarter of the max
+    // heap at 16 bytes per entry
+    private final long maxEntries;
+    // the next layer and the last one computed
+    private int t;
+    private LayerTable cur;
+    // the matrix into the layer t, built while the layer t - 1 is computed
+    private CompletableFuture<Transition> next;
+    // from[t] is the number of slices of the layer t in the store
+    private LayerStore store;
+    private int[] from;
+    // the last layer being saved
+    private CompletableFuture<Void> saved;
+
+    /**
+     * Constructor for objects of class Recursion, with the default
+     * CACHE_SIZE.
+     * @param surface The layers to compute.
+     * @param maxNode The max number of nodes, i.e. g_a - g.
+     */
+    public Recursion(Surface surface, int maxNode) {
+        this(surface, maxNode, CACHE_SIZE);
+    }
+
+    /**
+     * Constructor for objects of class Recursion.
+     * @param surface The layers to compute.
+     * @param maxNode The max number of nodes, i.e. g_a - g.
+     * @param cacheSize The max number of coefficients kept by Coefficients
+     * and of indices kept by Dominance.
+     */
+    public Recursion(Surface surface, int maxNode, long cacheSize) {
+        this.surface = surface;
+        this.maxNode = maxNode;
+        int layers = surface.layers();
+        slices = new int[layers];
+        wanted = new BitSet[layers];
+        maxWeight = new int[layers + 1];
+        for (int l = layers - 1; l >= 0; l--) {
+            maxWeight[l] = Math.max(maxWeight[l + 1], surface.weight(l));
+        }
+        // I(alpha) + I(beta) <= maxWeight[0] in all layers, so the
+        // positions from maxWeight[0] on are always 0.
+        int length = Math.max(1, maxWeight[0]);
+        arrOP = new ArrayOp(length);
+        parArr = new Partitions(maxWeight[0], length);
+        dom = new Dominance(parArr, cacheSize);
+        coef = new Coefficients(parArr, dom, arrOP, cacheSize);
+        maxEntries = Runtime.getRuntime().maxMemory() / 4 / 16;
+    }
+
+    /**
+     * Ask for the numbers of the layer t with I(alpha) <= maxAlpha and 
+     * s = 0,..., maxNode. If want is never called, all numbers are 
+     * computed. Otherwise only those wanted and those they depend on.
+     * @param t The layer.
+     * @param maxAlpha The max I(alpha) wanted.
+     * @throws IllegalStateException if a layer has been computed.
+     */
+    public void want(int t, int maxAlpha) {
+        LayerTable shape = wanted(t, maxNode);
+        int weight = surface.weight(t);
+        for (int j = 0; j <= Math.min(maxAlpha, weight); j++) {
+            int first = shape.pair(j, 0, 0);
+            wanted[t].set(first, first + parArr.size(j) * parArr.size(weight - j));
+        }
+    }
+
+    /**
+     * Ask for N(t, s, alpha, beta), see want(t, maxAlpha).
+     * @param t The layer.
+     * @param s The number of nodes.
+     * @param alpha A partition of the length of partitions().
+     * @param beta A partition with I(alpha) + I(beta) = weight(t).
+     * @throws IllegalStateException if a layer has been computed.
+     */
+    public void want(int t, int s, int[] alpha, int[] beta) {
+        LayerTable shape = wanted(t, s);
+        wanted[t].set(shape.pair(parArr.weight(alpha), parArr.rank(alpha), 
+                                 parArr.rank(beta)));
+    }
+
+    /**
+     * Keep the layers in the directory dir, see LayerStore. The layers 
+     * saved there which can be used are read instead of computed, and the 
+     * layers computed are saved unless some of their pairs are not needed.
+     * @param dir The directory of the layers.
+     * @throws IllegalStateException if a layer has been computed.
+     */
+    public void store(File dir) {
+        if (t > 0) {
+            throw new IllegalStateException("A layer has been computed.");
+        }
+        store = new LayerStore(dir, surface, parArr);
+    }
+
+    /**
+     * Start again from the layer 0, so the layers can be computed again, 
+     * e.g. with other wanted numbers or another store. The numbers wanted, 
+     * the store and the layers computed are forgotten; the lists of 
+     * Dominance and Coefficients are kept.
+     */
+    public void restart() {
+        // a matrix or a layer may still be built or saved if the last run 
+        // was not finished
+        if (next != null) {
+            next.handle((x, e) -> null).join();
+        }
+        if (saved != null) {
+            saved.handle((x, e) -> null).join();
+        }
+        t = 0;
+        cur = null;
+        next = null;
+        saved = null;
+        store = null;
+        from = null;
+        needed = null;
+        Arrays.fill(slices, 0);
+        Arrays.fill(wanted, null);
+    }
+
+    /**
+     * Return the partitions which index the layers.
+     * @return Partitions
+     */
+    public Partitions partitions() {
+        return parArr;
+    }
+
+    /**
+     * Return the cache of the coefficients, e.g. to read its counters.
+     * @return Coefficients
+     */
+    public Coefficients coefficients() {
+        return coef;
+    }
+
+    /**
+     * Return true if some layer has not been computed yet.
+     * @return boolean
+     */
+    public boolean hasNext() {
+        return t < surface.layers();
+    }
+
+    /**
+     * Compute the next layer. The layer returned is not changed afterwards,
+     * so it may be read by another thread while the next layers are
+     * computed. Only the last layer is kept here.
+     * @return The layer t, sliced by the number of nodes.
+     */
+    public LayerTable next() {
+        int layers = surface.layers();
+        if (t == 0) {
+            from = new int[layers];
+            for (int l = 0; store != null && l < layers; l++) {
+                from[l] = store.slices(l);
+            }
+            plan();
+            saved = CompletableFuture.completedFuture(null);
+        }
+        int weight = surface.weight(t);
+        boolean computed = computed(t);
+        Transition transition = (t > 0 && computed) ? next.join() : null;
+        // The next matrix is built while this one is applied only if both
+        // fit in maxEntries. A matrix which is not stored reads Dominance
+        // in apply, so the lists are only dropped and the next matrix only
+        // built after it.
+        boolean early = transition == null || (transition.stored()
+                        && transition.entries() <= maxEntries / 2);
+        if (early) {
+            prepare(transition, maxEntries
+                    - (transition == null ? 0 : transition.entries()));
+        }
+        LayerTable prev = cur;
+        if (slices[t] == 0) {
+            // nothing of the layer is needed
+            cur = new LayerTable(parArr, weight, 0);
+            finish();
+            return cur;
+        }
+        // The file may have been replaced since from[t] was read, so only
+        // the slices of the layer read are used.
+        LayerTable old = (from[t] > 0) ? store.load(t) : null;
+        if (!computed) {
+            if (old == null || old.slices() < slices[t]) {
+                throw new IllegalStateException("The layer " + t
+                                                + " can't be read.");
+            }
+            cur = old;
+            finish();
+            return cur;
+        }
+        from[t] = (old == null) ? 0 : Math.min(old.slices(), slices[t]);
+        cur = new LayerTable(parArr, weight, slices[t]);
+        if (t == 0) {
+            cur.fill(0);
+        }
+        if (old != null) {
+            // the slices s < from[t] are known
+            for (int pair = 0; pair < cur.size(); pair++) {
+                for (int s = 0; s < from[t]; s++) {
+                    cur.put(pair * slices[t] + s,
+                            old.get(pair * old.slices() + s));
+                }
+            }
+        }
+        if (t > 0) {
+            // g' = g - |gamma| + 1
+            transition.apply(prev, cur, surface.genus(t - 1)
+                                        - surface.genus(t) - 1, from[t]);
+        }
+        if (!early) {
+            prepare(transition, maxEntries);
+            // released before the next matrix is filled
+            transition = null;
+        }
+        // alpha + e_k comes before alpha since I(alpha) is decreasing
+        for (int j = weight; j >= 0; j--) {
+            wavefront(weight, j);
+        }
+        if (store != null && slices[t] > 0
+            && (needed == null || needed[t].cardinality() == cur.size())) {
+            // saved by another thread, one layer after another
+            int tt = t;
+            LayerTable layer = cur;
+            saved.join();
+            saved = CompletableFuture.runAsync(() -> store.save(tt, layer));
+        }
+        finish();
+        return cur;
+    }
+
+    /**
+     * Drop the lists and coefficients which are not used any more and start 
+     * the matrix into the layer t + 1. No matrix is being built now.
+     * @param transition The matrix into the layer t, or null.
+     * @param maxEntries The max number of entries the new matrix stores.
+     */
+    private void prepare(Transition transition, long maxEntries) {
+        int weight = surface.weight(t);
+        if (t > 0 && maxWeight[t] < maxWeight[t - 1]) {
+            dom.keep(maxWeight[t]);
+            coef.keep(maxWeight[t]);
+        }
+        dom.trim();
+        if (t + 1 < surface.layers() && computed(t + 1)) {
+            int nextWeight = surface.weight(t + 1);
+            if (transition != null && nextWeight == weight
+                && surface.weight(t - 1) == weight
+                && Objects.equals(needed(t + 1), needed(t))) {
+                // the same weights and rows, so the same matrix
+                next = CompletableFuture.completedFuture(transition);
+            }
+            else {
+                // only this task uses dom until it is joined
+                BitSet rows = needed(t + 1);
+                next = CompletableFuture.supplyAsync(() ->
+                    new Transition(parArr, dom, coef, nextWeight, weight, rows,
+                                   maxEntries));
+            }
+        }
+    }
+
+    /**
+     * Move to the next layer. After the last layer, wait until it is saved.
+     */
+    private void finish() {
+        t++;
+        if (t == surface.layers()) {
+            saved.join();
+        }
+    }
+
+    /**
+     * Compute N for all pairs with I(alpha) = j in parallel. A task is
+     * one pair and one of the parts of the slices.
+     */
+    private void wavefront(int weight, int j) {
+        int sizeB = parArr.size(weight - j);
+        // the slices first,..., sl - 1 are computed
+        int first = from[t];
+        int sl = slices[t] - first;
+        // the number of ranges of slices computed in parallel
+        int parts = Math.max(1, Math.min(sl, ForkJoinPool.getCommonPoolParallelism()));
+        BitSet rows = needed(t);
+        int firstPair = cur.pair(j, 0, 0);
+        IntStream.range(0, parts * parArr.size(j) * sizeB).parallel()
+            .filter(x -> rows == null || rows.get(firstPair + x / parts))
+            .forEach(x -> {
+                int part = x % parts;
+                int pair = x / parts;
+                N(weight, j, pair / sizeB, pair % sizeB,
+                  first + part * sl / parts, first + (part + 1) * sl / parts);
+            });
+    }
+
+    /**
+     * Return true if the layer l is computed, i.e. some of it is needed and 
+     * it is not in the store with all its slices.
+     */
+    private boolean computed(int l) {
+        return slices[l] > 0 && from[l] < slices[l];
+    }
+
+    /**
+     * Return the pairs of the layer l to compute, or null for all.
+     */
+    private BitSet needed(int l) {
+        return (needed == null) ? null : needed[l];
+    }
+
+    /**
+     * Start the wanted pairs of the layer l with s = 0,..., s and return 
+     * the shape of the layer.
+     */
+    private LayerTable wanted(int l, int s) {
+        if (this.t > 0) {
+            throw new IllegalStateException("A layer has been computed.");
+        }
+        if (wanted[l] == null) {
+            wanted[l] = new BitSet();
+        }
+        slices[l] = Math.max(slices[l], s + 1);
+        return new LayerTable(parArr, surface.weight(l), 0);
+    }
+
+    /**
+     * Find the pairs and slices of each layer to compute, from the last 
+     * layer to the first. If nothing is wanted, all of them are computed.
+     * A layer which is read from the store needs nothing of the layers 
+     * before it.
+     */
+    private void plan() {
+        int layers = surface.layers();
+        boolean any = false;
+        for (int l = 0; l < layers; l++) {
+            any = any || wanted[l] != null;
+        }
+        if (!any) {
+            Arrays.fill(slices, maxNode + 1);
+            return;
+        }
+        needed = new BitSet[layers];
+        for (int l = layers - 1; l >= 0; l--) {
+            int weight = surface.weight(l);
+            LayerTable shape = new LayerTable(parArr, weight, 0);
+            needed[l] = (wanted[l] != null) ? (BitSet) wanted[l].clone() 
+                                            : new BitSet();
+            if (l + 1 < layers && computed(l + 1)) {
+                // s' <= s in the second term
+                slices[l] = Math.max(slices[l], slices[l + 1]);
+            }
+            if (needed[l].cardinality() == shape.size()) {
+                // all pairs are wanted
+                continue;
+            }
+            if (l + 2 < layers && wanted[l] == null && wanted[l + 1] == null
+                && computed(l + 1) && computed(l + 2)
+                && same(l) && needed[l + 1].equals(needed[l + 2])) {
+                // the same step as from the layer l + 2 to l + 1
+                needed[l] = (BitSet) needed[l + 1].clone();
+                continue;
+            }
+            if (l + 1 < layers && computed(l + 1)) {
+                // s' >= 0 for some s < slices[l + 1]
+                int minGamma = surface.genus(l + 1) - surface.genus(l) + 1 
+                               - (slices[l + 1] - 1);
+                int nextWeight = surface.weight(l + 1);
+                LayerTable nextShape = new LayerTable(parArr, nextWeight, 0);
+                for (int j = 0; j <= nextWeight; j++) {
+                    int iBeta = nextWeight - j;
+                    for (int ia = 0; ia < parArr.size(j); ia++) {
+                        for (int ib = 0; ib < parArr.size(iBeta); ib++) {
+                            if (!needed[l + 1].get(nextShape.pair(j, ia, ib))) continue;
+                            // only over bP = beta + gamma >= beta and aP <= alpha
+                            for (int jP = iBeta; jP <= weight; jP++) {
+                                int[] above = dom.above(iBeta, ib, jP);
+                                int[] below = dom.below(j, ia, weight - jP);
+                                for (int u = 0; u < above.length; u++) {
+                                    // gamma is the partition of jP - iBeta with index u
+                                    if (parArr.sum(jP - iBeta, u) < minGamma) continue;
+                                    for (int v = 0; v < below.length; v++) {
+                                        needed[l].set(shape.pair(weight - jP, 
+                                                      below[v], above[u]));
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            // the first term, alpha + e_k comes after alpha
+            for (int j = 0; j <= weight; j++) {
+                for (int ia = 0; ia < parArr.size(j); ia++) {
+                    for (int ib = 0; ib < parArr.size(weight - j); ib++) {
+                        if (!needed[l].get(shape.pair(j, ia, ib))) continue;
+                        int[] beta = parArr.unrank(weight - j, ib);
+                        for (int k = 0; k < weight - j; k++) {
+                            if (beta[k] > 0) {
+                                needed[l].set(shape.pair(j + k + 1, 
+                                    parArr.plus(j, ia, k), 
+                                    parArr.minus(weight - j, ib, k)));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return true if the steps from the layer l + 2 to l + 1 and from l + 1 
+     * to l have the same weights, genera differences and slices.
+     */
+    private boolean same(int l) {
+        for (int m = l; m <= l + 1; m++) {
+            if (surface.weight(m) != surface.weight(m + 1) 
+                || surface.genus(m + 1) - surface.genus(m) 
+                   != surface.genus(l + 2) - surface.genus(l + 1)
+                || slices[m] != slices[m + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The recursive formula is implemented here.
+     * alpha is the partition of j with index ia and beta is the partition
+     * of weight - j with index ib. The entries of (alpha, beta) for all s
+     * form a vector in cur, which already contains the second terms. N adds
+     * (k + 1) times the vector of (alpha + e_k, beta - e_k) to it.
+     * Only the slices from <= s < to are computed.
+     */
+    private void N(int weight, int j, int ia, int ib, int from, int to) {
+        int base = cur.index(0, j, ia, ib);
+        // Base case. Only lines through the assigned points, so g = g_a
+        // and alpha = (k, 0, 0,...), i.e. I(alpha) = |alpha|.
+        if (t == 0 && j == weight) {
+            for (int s = from; s < to; s++) {
+                cur.put(base + s, (s == 0 && parArr.sum(j, ia) == j) ? 1 : 0);
+            }
+            return;
+        }
+        int[] beta = parArr.unrank(weight - j, ib);
+        // beta has no parts of size > weight - j
+        for (int k = 0; k < weight - j; k++) {    // the first term
+            if (beta[k] > 0) {
+                //alpha_+e_k, beta-e_k
+                int baseK = cur.index(0, j + k + 1, parArr.plus(j, ia, k),
+                                      parArr.minus(weight - j, ib, k));
+                for (int s = from; s < to; s++) {
+                    cur.put(base + s, cur.get(base + s)
+                                      + (k + 1) * cur.get(baseK + s));
+                }
+            }
+        }
+    }
+}
@@ -22,8 +22,8 @@ import java.util.ArrayList;
 
 public class SeqOp
 {    
-    private static long[][] C;
-    private static long max;
+    private final long[][] C;
+    private final long max;
     
     /** 
      * Build a table of all binomial coefficients with n choose k 
@@ -0,0 +1,39 @@
+/**
+ * The Surface interface describes the sequence of curve classes on which
+ * the recursive formulae of Caporaso-Harris and Vakil are run by
+ * Recursion. The curve classes are the layers t = 0, 1,..., layers() - 1.
+ * The numbers of the layer t satisfy I(alpha) + I(beta) = weight(t), and
+ * the second term of the layer t reads the layer t - 1 with
+ * g' = g - |gamma| + 1. <br>
+ * The layer 0 is the base case: a line on P^2 or the fiber class bf on
+ * F_n, where the only curve of geometric genus g_a = genus(0) with
+ * tangency (alpha, 0) is the union of the lines through the assigned
+ * points, i.e. alpha = (k, 0, 0,...).
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public interface Surface
+{
+    /**
+     * Return the number of layers.
+     * @return int
+     */
+    int layers();
+
+    /**
+     * Return I(alpha) + I(beta) of the layer t, i.e. the intersection of
+     * its curve class with the fixed line or divisor E.
+     * @param t The layer.
+     * @return int
+     */
+    int weight(int t);
+
+    /**
+     * Return the arithmetic genus of the curve class of the layer t.
+     * @param t The layer.
+     * @return int
+     */
+    int genus(int t);
+}
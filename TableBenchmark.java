@@ -0,0 +1,277 @@
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TableBenchmark class measures how the tables for N scale with the
+ * number of threads. The keys are those of one layer of CH, i.e.
+ * (r, alpha, beta) with r = 0,..., maxNode and I(alpha) + I(beta) = deg.
+ * <p>
+ * Every thread puts its share of the keys, then gets a share of the keys
+ * in the reverse order, so the threads read entries written by the others.
+ * Then one thread puts all keys while the others get them in the reverse
+ * order at the same time, as when a layer is read while it is computed.
+ * The tables are <br>
+ * 1) ConcurrentLongMap with keys packed by KeyCodec, <br>
+ * 2) LongMap with packed keys behind one lock, <br>
+ * 3) ConcurrentHashMap with the ArrayList keys of Key. <br>
+ * The time of each table is printed for 1, 2, 4,... threads up to the
+ * number entered, and for one writer with 1, 2, 4,... readers.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class TableBenchmark
+{
+    private int deg;
+    private int maxNode;
+    private Partitions parArr;
+    private KeyCodec codec;
+    // the packed keys and the ArrayList keys of the layer, in the same order
+    private long[][] keys;
+    private ArrayList<ArrayList<Integer>> listKeys;
+
+    /**
+     * Constructor for objects of class TableBenchmark.
+     * @param deg The degree of the layer.
+     * @param maxNode The max number of nodes.
+     */
+    public TableBenchmark(int deg, int maxNode) {
+        this.deg = deg;
+        this.maxNode = maxNode;
+        parArr = new Partitions(deg, deg);
+        codec = new KeyCodec(1, deg, deg);
+        ArrayList<long[]> packed = new ArrayList<long[]>();
+        listKeys = new ArrayList<ArrayList<Integer>>();
+        for (int r = 0; r <= maxNode; r++) {
+            for (int j = 0; j <= deg; j++) {
+                for (int[] alpha : parArr.get(j)) {
+                    for (int[] beta : parArr.get(deg - j)) {
+                        long[] key = codec.newKey();
+                        codec.make(key, r, alpha, beta);
+                        packed.add(key);
+                        listKeys.add(Key.make(r, alpha, beta));
+                    }
+                }
+            }
+        }
+        keys = packed.toArray(new long[0][]);
+    }
+
+    /**
+     * The main method of the class.
+     * Paramaters deg, maxNode and the max number of threads are
+     * initialzed by user input.
+     * @param args Unused
+     */
+    public static void main(String[] args) {
+        Scanner reader = new Scanner(System.in);
+        System.out.println("degree = ");
+        int deg = reader.nextInt();
+        System.out.println("maxNode = ");
+        int maxNode = reader.nextInt();
+        System.out.println("max number of threads = ");
+        int maxThreads = reader.nextInt();
+        reader.close();
+
+        TableBenchmark bench = new TableBenchmark(deg, maxNode);
+        System.out.format("%d keys of %d longs\n", bench.keys.length,
+                          bench.codec.words());
+        System.out.println("threads  ConcurrentLongMap  locked LongMap  "
+                           + "ConcurrentHashMap (ms)");
+        for (int t = 1; t <= maxThreads; t *= 2) {
+            // the first round warms up the JIT
+            bench.run(t);
+            long[] ms = bench.run(t);
+            System.out.format("%7d  %17d  %14d  %17d\n", t, ms[0], ms[1], ms[2]);
+        }
+        System.out.println("readers  ConcurrentLongMap  locked LongMap  "
+                           + "ConcurrentHashMap (ms, with one writer)");
+        for (int t = 1; t <= maxThreads; t *= 2) {
+            bench.overlap(t);
+            long[] ms = bench.overlap(t);
+            System.out.format("%7d  %17d  %14d  %17d\n", t, ms[0], ms[1], ms[2]);
+        }
+    }
+
+    /**
+     * Run the three tables with the given number of threads.
+     * @return The times in milliseconds.
+     */
+    private long[] run(int threads) {
+        long[] ms = new long[3];
+        long sum = 0;
+        int last = keys.length - 1;
+
+        ConcurrentLongMap lockFree = new ConcurrentLongMap(codec.words(),
+                                                           keys.length);
+        long start = System.nanoTime();
+        parallel(threads, key -> {
+            lockFree.put(keys[key], key);
+            return 0;
+        });
+        sum += parallel(threads, key -> lockFree.get(keys[last - key]));
+        ms[0] = (System.nanoTime() - start) / 1000000;
+
+        LongMap locked = new LongMap(codec.words(), keys.length);
+        start = System.nanoTime();
+        parallel(threads, key -> {
+            synchronized (locked) {
+                locked.put(keys[key], key);
+            }
+            return 0;
+        });
+        sum += parallel(threads, key -> {
+            synchronized (locked) {
+                return locked.get(keys[last - key]);
+            }
+        });
+        ms[1] = (System.nanoTime() - start) / 1000000;
+
+        Map<ArrayList<Integer>, Long> boxed =
+            new ConcurrentHashMap<ArrayList<Integer>, Long>(2 * keys.length);
+        start = System.nanoTime();
+        parallel(threads, key -> {
+            boxed.put(listKeys.get(key), (long) key);
+            return 0;
+        });
+        sum += parallel(threads, key -> boxed.get(listKeys.get(last - key)));
+        ms[2] = (System.nanoTime() - start) / 1000000;
+
+        // the value of a key is its index, so sum = 3 * (0 + 1 +...)
+        long n = keys.length;
+        if (sum != 3 * (n * (n - 1) / 2)) {
+            System.out.println("The tables returned wrong values.");
+        }
+        return ms;
+    }
+
+    /**
+     * Run the three tables with one thread putting all keys and the given
+     * number of threads getting them at the same time.
+     * @return The times in milliseconds.
+     */
+    private long[] overlap(int readers) {
+        long[] ms = new long[3];
+        long wrong = 0;
+
+        ConcurrentLongMap lockFree = new ConcurrentLongMap(codec.words(),
+                                                           keys.length);
+        long start = System.nanoTime();
+        wrong += overlap(readers, key -> {
+            lockFree.put(keys[key], key);
+            return 0;
+        }, key -> lockFree.get(keys[key]));
+        ms[0] = (System.nanoTime() - start) / 1000000;
+
+        LongMap locked = new LongMap(codec.words(), keys.length);
+        start = System.nanoTime();
+        wrong += overlap(readers, key -> {
+            synchronized (locked) {
+                locked.put(keys[key], key);
+            }
+            return 0;
+        }, key -> {
+            synchronized (locked) {
+                return locked.get(keys[key]);
+            }
+        });
+        ms[1] = (System.nanoTime() - start) / 1000000;
+
+        Map<ArrayList<Integer>, Long> boxed =
+            new ConcurrentHashMap<ArrayList<Integer>, Long>(2 * keys.length);
+        start = System.nanoTime();
+        wrong += overlap(readers, key -> {
+            boxed.put(listKeys.get(key), (long) key);
+            return 0;
+        }, key -> {
+            Long value = boxed.get(listKeys.get(key));
+            return (value == null) ? 0 : value;
+        });
+        ms[2] = (System.nanoTime() - start) / 1000000;
+
+        if (wrong > 0) {
+            System.out.println("The tables returned wrong values.");
+        }
+        return ms;
+    }
+
+    /**
+     * Run put on every key in one thread and, at the same time, get on
+     * every key in the reverse order in the other threads, thread t taking
+     * the keys last - t, last - t - readers,.... A key which is not put
+     * yet may be missing (0), but never have another value.
+     * @return The number of wrong values.
+     */
+    private long overlap(int readers, Task put, Task get) {
+        long[] wrong = new long[readers];
+        Thread[] workers = new Thread[readers + 1];
+        int last = keys.length - 1;
+        workers[readers] = new Thread(() -> {
+            for (int key = 0; key < keys.length; key++) {
+                put.apply(key);
+            }
+        });
+        for (int t = 0; t < readers; t++) {
+            int tt = t;
+            workers[t] = new Thread(() -> {
+                for (int key = last - tt; key >= 0; key -= readers) {
+                    long value = get.apply(key);
+                    if (value != 0 && value != key) wrong[tt]++;
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        long ans = 0;
+        for (int t = 0; t <= readers; t++) {
+            try {
+                workers[t].join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (t < readers) ans += wrong[t];
+        }
+        return ans;
+    }
+
+    private interface Task
+    {
+        long apply(int key);
+    }
+
+    /**
+     * Run task on every key, thread t taking the keys t, t + threads,....
+     * @return The sum of the results.
+     */
+    private long parallel(int threads, Task task) {
+        long[] sums = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int tt = t;
+            workers[t] = new Thread(() -> {
+                long s = 0;
+                for (int key = tt; key < keys.length; key += threads) {
+                    s += task.apply(key);
+                }
+                sums[tt] = s;
+            });
+            workers[t].start();
+        }
+        long ans = 0;
+        for (int t = 0; t < threads; t++) {
+            try {
+                workers[t].join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ans += sums[t];
+        }
+        return ans;
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * The Transition class stores the second term of the recursive formulae
+ * of Caporaso-Harris and Vakil as a sparse matrix from one layer to the
+ * next one, in compressed sparse row form.
+ * <p>
+ * The row of (alpha, beta) has one entry for every alpha' <= alpha and
+ * beta' = beta + gamma >= beta with I(alpha') + I(beta') = prevWeight.
+ * The entry keeps the index of (alpha', beta') in a slice of the previous
+ * layer, the coefficient J(gamma) binom(alpha, alpha') binom(beta', beta)
+ * and |gamma|. The slice of the previous layer moves with |gamma|, since
+ * g' = g - |gamma| + 1: s' = s + |gamma| + shift, where the slices count
+ * the nodes (see Recursion). For CH r' = r + |gamma| - d + 1. <br>
+ * So the matrix only depends on the weights of the two layers. For
+ * F0table every step a - 1 to a has the same matrix. The coefficients are the
+ * products of the two factors kept by Coefficients.
+ * <p>
+ * apply multiplies the matrix with all slices of the previous layer. The
+ * rows are independent, so they are computed in parallel. If only some
+ * rows are needed (see Recursion.want), the other rows are left empty.
+ * <p>
+ * The matrix is only stored if it has at most maxEntries entries, since
+ * an entry takes 16 bytes and the matrix of CH grows like the square of
+ * the number of pairs (about 9 * 10^6 entries for d = 20 and 2 * 10^9
+ * for d = 30). Otherwise apply computes the entries of each row again
+ * from the lists of Dominance and the factors of Coefficients, which are
+ * cached.
+ *
+ * @author Yu-jong Tzeng
+ * @version 1.0
+ * @since October 17, 2026.
+ */
+public class Transition
+{
+    private Partitions parArr;
+    private Dominance dom;
+    private Coefficients coef;
+    private LayerTable prevShape;
+    private int weight;
+    private int prevWeight;
+    private int rows;
+    // the (I(alpha), index of alpha, index of beta) of each row
+    private int[] rowJ;
+    private int[] rowA;
+    private int[] rowB;
+    private long entries;
+    // the entries of row i are rowStart[i],..., rowStart[i + 1] - 1, or
+    // null if the matrix is not stored
+    private int[] rowStart;
+    private int[] col;
+    private long[] coeff;
+    private int[] gammaSum;
+    // the rows which are computed, null for all of them
+    private BitSet needed;
+
+    /**
+     * Build the matrix from the layer of prevWeight to the layer of weight.
+     * @param parArr The partitions of all integers <= max(weight, prevWeight).
+     * @param dom The dominance lists over parArr.
+     * @param coef The factors of the coefficients.
+     * @param weight I(alpha) + I(beta) of the rows.
+     * @param prevWeight I(alpha') + I(beta') of the columns.
+     * @param needed The rows to compute, as LayerTable.pair, or null for 
+     * all of them.
+     * @param maxEntries The max number of entries stored, see apply.
+     */
+    public Transition(Partitions parArr, Dominance dom, Coefficients coef,
+                      int weight, int prevWeight, BitSet needed, 
+                      long maxEntries) {
+        this.parArr = parArr;
+        this.dom = dom;
+        this.coef = coef;
+        this.weight = weight;
+        this.prevWeight = prevWeight;
+        this.needed = needed;
+        LayerTable shape = new LayerTable(parArr, weight, 0);
+        prevShape = new LayerTable(parArr, prevWeight, 0);
+        rows = shape.size();
+        rowJ = new int[rows];
+        rowA = new int[rows];
+        rowB = new int[rows];
+        for (int j = 0; j <= weight; j++) {
+            for (int ia = 0; ia < parArr.size(j); ia++) {
+                for (int ib = 0; ib < parArr.size(weight - j); ib++) {
+                    int row = shape.pair(j, ia, ib);
+                    rowJ[row] = j;
+                    rowA[row] = ia;
+                    rowB[row] = ib;
+                }
+            }
+        }
+        // Count the entries of each row, then fill them. Dominance is not 
+        // thread safe, so the counting is done on this thread, which also 
+        // builds all the lists the parallel filling reads.
+        int[] count = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            count[row] = needs(row) ? fill(row, -1) : 0;
+            entries += count[row];
+        }
+        if (entries > Math.min(maxEntries, Integer.MAX_VALUE)) {
+            // computed again by apply
+            return;
+        }
+        rowStart = new int[rows + 1];
+        for (int row = 0; row < rows; row++) {
+            rowStart[row + 1] = rowStart[row] + count[row];
+        }
+        col = new int[rowStart[rows]];
+        coeff = new long[rowStart[rows]];
+        gammaSum = new int[rowStart[rows]];
+        IntStream.range(0, rows).parallel().filter(this::needs).forEach(row ->
+            fill(row, rowStart[row]));
+    }
+
+    /**
+     * Return the number of rows, i.e. the size of a slice.
+     * @return int
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Return the number of nonzero entries.
+     * @return long
+     */
+    public long entries() {
+        return entries;
+    }
+
+    /**
+     * Return true if the entries are stored, i.e. there are at most 
+     * maxEntries of them.
+     * @return boolean
+     */
+    public boolean stored() {
+        return rowStart != null;
+    }
+
+    /**
+     * Compute out = (this matrix) * prev for the slices s >= from of out:
+     * out(s, row) is the sum of coeff * prev(s', column) over the entries
+     * of the row with s' = s + |gamma| + shift in
+     * [0, prev.slices() - 1]. Entries of prev which were never put are
+     * skipped, and the rows which are not needed are not put. Since the 
+     * slices of a pair are consecutive in a LayerTable, every entry of the 
+     * matrix adds a shifted vector to a vector. <br>
+     * If the matrix is not stored, apply uses Dominance, first on this 
+     * thread to build the lists and then from several threads to read 
+     * them. So no other thread may use it until apply returns.
+     * @param prev The previous layer.
+     * @param out The layer to write, of the shape of the rows.
+     * @param shift genus(t - 1) - genus(t) - 1, i.e. 1 - d for CH.
+     * @param from The first slice to put; the slices before are kept.
+     */
+    public void apply(LayerTable prev, LayerTable out, int shift, int from) {
+        int slices = out.slices();
+        if (!stored()) {
+            // the lists may have been dropped since the matrix was built
+            for (int row = 0; row < rows; row++) {
+                if (needs(row)) fill(row, -1);
+            }
+        }
+        IntStream.range(0, rows).parallel().filter(this::needs).forEach(row -> {
+            long[] ans = new long[slices];
+            if (stored()) {
+                for (int e = rowStart[row]; e < rowStart[row + 1]; e++) {
+                    add(prev, ans, col[e], coeff[e], gammaSum[e] + shift, from);
+                }
+            }
+            else {
+                stream(prev, ans, row, shift, from);
+            }
+            for (int s = from; s < slices; s++) {
+                out.put(row * slices + s, ans[s]);
+            }
+        });
+    }
+
+    /**
+     * Return true if the row is computed.
+     */
+    private boolean needs(int row) {
+        return needed == null || needed.get(row);
+    }
+
+    /**
+     * Add the entries of a row of the matrix which is not stored to ans, 
+     * as apply. The entries are those fill writes.
+     */
+    private void stream(LayerTable prev, long[] ans, int row, int shift, 
+                        int from) {
+        int j = rowJ[row];
+        int iBeta = weight - j;
+        for (int jP = iBeta; jP <= prevWeight; jP++) {
+            int[] above = dom.above(iBeta, rowB[row], jP);
+            int[] below = dom.below(j, rowA[row], prevWeight - jP);
+            if (above.length == 0 || below.length == 0) continue;
+            long[] bCoeff = coef.above(iBeta, rowB[row], jP);
+            long[] aCoeff = coef.below(j, rowA[row], prevWeight - jP);
+            for (int t = 0; t < above.length; t++) {
+                // gamma is the partition of jP - iBeta with index t
+                int sh = parArr.sum(jP - iBeta, t) + shift;
+                if (Math.max(from, -sh) >= Math.min(ans.length, 
+                                                    prev.slices() - sh)) {
+                    // no slice s' of prev in range
+                    continue;
+                }
+                for (int s = 0; s < below.length; s++) {
+                    add(prev, ans, prevShape.pair(prevWeight - jP, below[s], 
+                                                  above[t]),
+                        bCoeff[t] * aCoeff[s], sh, from);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add c * prev(s + sh, column) to ans[s] for all s >= from with
+     * 0 <= s + sh < prev.slices().
+     */
+    private static void add(LayerTable prev, long[] ans, int column, long c,
+                            int sh, int from) {
+        int prevSlices = prev.slices();
+        int base = column * prevSlices + sh;
+        for (int s = Math.max(from, -sh); 
+             s < Math.min(ans.length, prevSlices - sh); s++) {
+            long value = prev.get(base + s);
+            if (value != LayerTable.MISSING) {
+                ans[s] = ans[s] + c * value;
+            }
+        }
+    }
+
+    /**
+     * Count the entries of a row, or write them from position start if
+     * start >= 0.
+     * @return The number of entries.
+     */
+    private int fill(int row, int start) {
+        int j = rowJ[row];
+        int ia = rowA[row];
+        int ib = rowB[row];
+        int iBeta = weight - j;
+        int e = start;
+        int count = 0;
+        for (int jP = iBeta; jP <= prevWeight; jP++) {
+            int[] above = dom.above(iBeta, ib, jP);
+            int[] below = dom.below(j, ia, prevWeight - jP);
+            if (start < 0) {
+                count += above.length * below.length;
+                continue;
+            }
+            long[] bCoeff = coef.above(iBeta, ib, jP);
+            long[] aCoeff = coef.below(j, ia, prevWeight - jP);
+            for (int t = 0; t < above.length; t++) {
+                // gamma is the partition of jP - iBeta with index t
+                int gSum = parArr.sum(jP - iBeta, t);
+                for (int s = 0; s < below.length; s++) {
+                    col[e] = prevShape.pair(prevWeight - jP, below[s], above[t]);
+                    coeff[e] = bCoeff[t] * aCoeff[s];
+                    gammaSum[e] = gSum;
+                    e++;
+                }
+            }
+            count += above.length * below.length;
+        }
+        return count;
+    }
+}